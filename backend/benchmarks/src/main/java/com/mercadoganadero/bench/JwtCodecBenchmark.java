@@ -0,0 +1,84 @@
+package com.mercadoganadero.bench;
+
+import com.mercadoganadero.enums.UserRole;
+import com.mercadoganadero.security.OpaqueTokenGenerator;
+import com.mercadoganadero.security.jwt.JwtAlgorithm;
+import com.mercadoganadero.security.jwt.JwtCodec;
+import com.mercadoganadero.security.jwt.JwtSigningKey;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens firmados y verificados por segundo con JwtCodec, por algoritmo de firma
+ * El refresh token es opaco: se mide su emisión, que no depende del algoritmo
+ * Para ver asignaciones por operación: java -jar target/benchmarks.jar -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtCodecBenchmark {
+
+    private static final String USERNAME = "ganadero@example.com";
+    private static final Integer USER_ID = 42;
+    private static final List<UserRole> ROLES = List.of(UserRole.USER, UserRole.SELLER);
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    private JwtAlgorithm algorithm;
+
+    private JwtCodec codec;
+    private String accessToken;
+
+    @Setup
+    public void setUp() throws Exception {
+        JwtSigningKey key = generateKey(algorithm);
+
+        codec = new JwtCodec(key, List.of(key), key.kid(), "mercado-ganadero",
+                TimeUnit.MINUTES.toMillis(15));
+        accessToken = codec.signAccessToken(USERNAME, USER_ID, ROLES);
+    }
+
+    private static JwtSigningKey generateKey(JwtAlgorithm algorithm) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm.getKeyFactoryAlgorithm());
+        switch (algorithm) {
+            case RS256 -> generator.initialize(2048);
+            case ES256 -> generator.initialize(new ECGenParameterSpec("secp256r1"));
+            default -> { } // Ed25519 no requiere parámetros
+        }
+        KeyPair keyPair = generator.generateKeyPair();
+        return new JwtSigningKey("bench-" + algorithm.name(), algorithm, keyPair.getPrivate(), keyPair.getPublic());
+    }
+
+    @Benchmark
+    public String signAccessToken() {
+        return codec.signAccessToken(USERNAME, USER_ID, ROLES);
+    }
+
+    @Benchmark
+    public String issueRefreshToken() {
+        return OpaqueTokenGenerator.newToken();
+    }
+
+    @Benchmark
+    public Claims verifyAccessToken() {
+        return codec.parse(accessToken).getPayload();
+    }
+}
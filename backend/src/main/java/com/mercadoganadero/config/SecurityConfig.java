@@ -1,6 +1,10 @@
 package com.mercadoganadero.config;
 
+import com.mercadoganadero.security.BoundedPasswordEncoder;
 import com.mercadoganadero.security.CustomUserDetailsService;
+import com.mercadoganadero.security.PasswordEncoders;
+import com.mercadoganadero.security.PasswordHashingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -11,10 +15,10 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import com.mercadoganadero.security.jwt.JwtAuthenticationFilter;
+import com.mercadoganadero.security.ratelimit.AuthRateLimitFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -32,24 +36,35 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final AuthRateLimitFilter authRateLimitFilter;
     private final CustomUserDetailsService userDetailsService;
+    private final PasswordHashingProperties passwordHashingProperties;
 
     // ====================================================================
     // 1. BEAN PARA HASHEAR CONTRASEÑAS
     // ====================================================================
+    /**
+     * Hashing (BCrypt calibrado, Argon2id o scrypt) ejecutado en un pool acotado:
+     * los hilos de Tomcat no compiten por CPU con el hashing
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+    public BoundedPasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        PasswordHashingProperties properties = passwordHashingProperties;
+        return new BoundedPasswordEncoder(PasswordEncoders.create(properties),
+                properties.getPoolSize(), properties.getQueueCapacity(),
+                properties.getTimeoutMs(), properties.getRetryAfterSeconds(), meterRegistry);
     }
 
     /**
      * Proveedor de autenticación DAO personalizado
      */
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        // Re-hash transparente en el login si cambió el algoritmo o el costo
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
@@ -65,7 +80,8 @@ public class SecurityConfig {
     // 2. REGLAS DE SEGURIDAD HTTP
     // ====================================================================
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   DaoAuthenticationProvider authenticationProvider) throws Exception {
         http
                 // 1. API REST sin estado (Stateless)
                 .csrf(AbstractHttpConfigurer::disable) // Deshabilitar CSRF (No se usa en API REST)
@@ -73,7 +89,7 @@ public class SecurityConfig {
                         session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
 
                 // Configurar proveedor de autenticación
-                .authenticationProvider(authenticationProvider())
+                .authenticationProvider(authenticationProvider)
 
                 // 2. Reglas de Autorización (Quién puede acceder a qué)
                 .authorizeHttpRequests(auth -> auth
@@ -101,6 +117,8 @@ public class SecurityConfig {
                         // Endpoints para usuarios autenticados
                         .anyRequest().authenticated() // Cualquier otra petición requiere autenticación
                 )
+                // 0. límite de intentos por IP en endpoints de autenticación (mismo orden: se registra primero)
+                .addFilterBefore(authRateLimitFilter, UsernamePasswordAuthenticationFilter.class)
                 // 1. filtro JWT (para autenticar y poner el ID en el contexto)
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
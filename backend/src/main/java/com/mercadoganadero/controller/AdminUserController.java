@@ -0,0 +1,97 @@
+package com.mercadoganadero.controller;
+
+import com.mercadoganadero.dto.UserCreateDTO;
+import com.mercadoganadero.dto.UserImportResultDTO;
+import com.mercadoganadero.enums.UserExportFormat;
+import com.mercadoganadero.enums.UserImportStatus;
+import com.mercadoganadero.exception.InvalidRequestException;
+import com.mercadoganadero.service.UserExportService;
+import com.mercadoganadero.service.UserImportService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * REST Controller para administración de users
+ * Base URL: /api/admin/users (solo ADMIN, ver SecurityConfig)
+ */
+@RestController
+@RequestMapping("/api/admin/users")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "${app.cors.allowed-origins}")
+public class AdminUserController {
+
+    private final UserExportService userExportService;
+    private final UserImportService userImportService;
+
+    /**
+     * POST /api/admin/users/import
+     * Alta masiva de usuarios (ej: socios de una cooperativa); body: lista de UserCreateDTO
+     *
+     * Sin @Valid: cada fila se valida por separado y una fila inválida no rechaza la solicitud.
+     * La respuesta trae el resultado de cada fila (CREATED, INVALID, DUPLICATE) y los totales.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<Map<String, Object>> importUsers(@RequestBody List<UserCreateDTO> users) {
+        List<UserImportResultDTO> results = userImportService.importUsers(users);
+
+        Map<UserImportStatus, Long> totals = new EnumMap<>(UserImportStatus.class);
+        for (UserImportStatus status : UserImportStatus.values()) {
+            totals.put(status, results.stream().filter(result -> result.getStatus() == status).count());
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("total", results.size());
+        response.put("created", totals.get(UserImportStatus.CREATED));
+        response.put("invalid", totals.get(UserImportStatus.INVALID));
+        response.put("duplicate", totals.get(UserImportStatus.DUPLICATE));
+        response.put("results", results);
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * GET /api/admin/users/export?format=ndjson&userTypeId=2
+     * Exporta todos los usuarios no eliminados (format: ndjson o csv)
+     *
+     * Se escribe directo en la respuesta mientras se leen las filas (sin cargar la lista en memoria);
+     * con Accept-Encoding: gzip la respuesta sale comprimida (server.compression)
+     */
+    @GetMapping("/export")
+    public void exportUsers(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Integer userTypeId,
+            HttpServletResponse response) throws IOException {
+
+        UserExportFormat exportFormat = parseFormat(format);
+        String filename = "users-" + LocalDate.now() + "." + exportFormat.getExtension();
+
+        userExportService.export(exportFormat, userTypeId, () -> {
+            response.setContentType(exportFormat.getContentType());
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename(filename).build().toString());
+            return response.getOutputStream();
+        });
+    }
+
+    private static UserExportFormat parseFormat(String format) {
+        try {
+            return UserExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidRequestException("Formato de exportación no soportado: " + format + " (ndjson o csv)");
+        }
+    }
+}
@@ -3,9 +3,14 @@ package com.mercadoganadero.controller;
 import com.mercadoganadero.dto.*;
 import com.mercadoganadero.entity.RefreshToken;
 import com.mercadoganadero.entity.User;
+import com.mercadoganadero.security.CustomUserDetails;
+import com.mercadoganadero.security.jwt.JwtAuthenticationFilter;
 import com.mercadoganadero.security.jwt.JwtTokenProvider;
+import com.mercadoganadero.security.jwt.TokenRevocationService;
+import com.mercadoganadero.security.ratelimit.AuthRateLimiter;
 import com.mercadoganadero.service.RefreshTokenService;
 import com.mercadoganadero.service.UserService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -18,7 +23,6 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 /**
@@ -37,6 +41,8 @@ public class AuthController {
     private final JwtTokenProvider tokenProvider; // Proveedor de JWT
     private final UserService userService; // Servicio de negocio para el registro
     private final RefreshTokenService refreshTokenService;
+    private final AuthRateLimiter rateLimiter; // Límite de intentos por cuenta
+    private final TokenRevocationService tokenRevocationService; // Revocación inmediata de access tokens
 
     @Value("${app.jwt.expiration-ms}")
     private long jwtExpirationInMs;
@@ -51,6 +57,9 @@ public class AuthController {
             @Valid @RequestBody LoginDTO loginDTO,
             HttpServletRequest request) {
 
+        // 0. Límite de intentos por cuenta (antes de hashear)
+        rateLimiter.checkEmail(loginDTO.getEmail());
+
         // 1. Autenticar las credenciales (llama a CustomUserDetailsService)
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
@@ -61,8 +70,8 @@ public class AuthController {
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        // 2. Obtener usuario completo con roles
-        User user = userService.getUserByEmail(loginDTO.getEmail());
+        // 2. Usuario completo con roles, ya cargado por CustomUserDetailsService al autenticar
+        User user = ((CustomUserDetails) authentication.getPrincipal()).getUser();
 
         // 3. Generar Access Token (corto, con roles)
         String accessToken = tokenProvider.generateAccessToken(
@@ -71,22 +80,16 @@ public class AuthController {
                 user.getRolesList()
         );
 
-        // 4. Generar Refresh Token (largo, sin roles sensibles)
-        String refreshTokenStr = tokenProvider.generateRefreshToken(
-                user.getEmail(),
-                user.getUserId()
-        );
-
-        // 5. Guardar refresh token en BD
+        // 4. Generar y guardar Refresh Token opaco (sin firma, validado contra la BD)
         RefreshToken refreshToken = refreshTokenService.createRefreshToken(
                 user.getUserId(),
                 request
         );
 
-        // 6. Actualizar último login
+        // 5. Actualizar último login
         userService.updateLastLogin(user.getUserId());
 
-        // 7. Respuesta
+        // 6. Respuesta
         AuthResponseDTO response = AuthResponseDTO.builder()
                 .accessToken(accessToken)
                 .refreshToken(refreshToken.getToken())
@@ -109,13 +112,14 @@ public class AuthController {
             @Valid @RequestBody RefreshTokenDTO refreshTokenDTO,
             HttpServletRequest request) {
 
-        // 1. Validar refresh token
-        RefreshToken refreshToken = refreshTokenService.validateRefreshToken(
-                refreshTokenDTO.getRefreshToken()
+        // 1. Validar y rotar el refresh token en una sola operación atómica
+        RefreshToken newRefreshToken = refreshTokenService.rotateRefreshToken(
+                refreshTokenDTO.getRefreshToken(),
+                request
         );
 
         // 2. Obtener usuario
-        User user = userService.getUserById(refreshToken.getUserId());
+        User user = userService.getUserById(newRefreshToken.getUserId());
 
         // 3. Generar nuevo access token
         String newAccessToken = tokenProvider.generateAccessToken(
@@ -124,24 +128,7 @@ public class AuthController {
                 user.getRolesList()
         );
 
-        // 4. Generar nuevo refresh token (rotación)
-        String newRefreshTokenStr = tokenProvider.generateRefreshToken(
-                user.getEmail(),
-                user.getUserId()
-        );
-
-        RefreshToken newRefreshToken = refreshTokenService.createRefreshToken(
-                user.getUserId(),
-                request
-        );
-
-        // 5. Revocar el refresh token viejo
-        refreshTokenService.revokeToken(
-                refreshTokenDTO.getRefreshToken(),
-                newRefreshToken.getToken()
-        );
-
-        // 6. Respuesta
+        // 4. Respuesta
         AuthResponseDTO response = AuthResponseDTO.builder()
                 .accessToken(newAccessToken)
                 .refreshToken(newRefreshToken.getToken())
@@ -161,6 +148,8 @@ public class AuthController {
     @PostMapping("/register")
     public ResponseEntity<UserResponseDTO> registerUser(
             @Valid @RequestBody UserCreateDTO userCreateDTO) {
+        rateLimiter.checkEmail(userCreateDTO.getEmail());
+
         // El UserService lanza DuplicateEmailException si el email ya existe
         User user = userService.createUser(userCreateDTO);
 
@@ -173,9 +162,16 @@ public class AuthController {
     /**
      * POST /api/auth/logout
      * Cierra sesión y revoca el refresh token actual
+     * Si la petición trae el access token, también se revoca de inmediato
      */
     @PostMapping("/logout")
-    public ResponseEntity<Void> logout(@Valid @RequestBody RefreshTokenDTO refreshTokenDTO) {
+    public ResponseEntity<Void> logout(@Valid @RequestBody RefreshTokenDTO refreshTokenDTO,
+                                       HttpServletRequest request) {
+        Claims accessClaims = (Claims) request.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE);
+        if (accessClaims != null) {
+            tokenRevocationService.revokeAccessToken(accessClaims);
+        }
+
         try {
             RefreshToken refreshToken = refreshTokenService.validateRefreshToken(
                     refreshTokenDTO.getRefreshToken()
@@ -195,13 +191,14 @@ public class AuthController {
     /**
      * POST /api/auth/logout-all
      * Cierra todas las sesiones del usuario actual
+     * Revoca los refresh tokens y, en todos los nodos, los access tokens ya emitidos
      */
     @PostMapping("/logout-all")
-    public ResponseEntity<Void> logoutAll(@AuthenticationPrincipal UserDetails userDetails) {
-        User user = userService.getUserByEmail(userDetails.getUsername());
-        refreshTokenService.revokeAllUserTokens(user.getUserId());
+    public ResponseEntity<Void> logoutAll(@AuthenticationPrincipal CustomUserDetails userDetails) {
+        refreshTokenService.revokeAllUserTokens(userDetails.getUserId());
+        tokenRevocationService.revokeUserTokens(userDetails.getUserId());
 
-        log.info("Logout global para usuario: {}", user.getEmail());
+        log.info("Logout global para usuario: {}", userDetails.getUsername());
 
         return ResponseEntity.ok().build();
     }
@@ -2,11 +2,13 @@ package com.mercadoganadero.controller;
 
 import com.mercadoganadero.dto.*;
 import com.mercadoganadero.entity.User;
+import com.mercadoganadero.security.ratelimit.AuthRateLimiter;
 import com.mercadoganadero.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,7 +18,6 @@ import jakarta.validation.Valid;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * REST Controller para endpoints de users
@@ -35,6 +36,7 @@ import java.util.stream.Collectors;
 public class UserController {
 
     private final UserService userService;
+    private final AuthRateLimiter rateLimiter; // Límite de intentos por cuenta
 
     /**
      * GET /api/users/{id}
@@ -79,12 +81,9 @@ public class UserController {
                 : Sort.Direction.DESC;
 
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
-        Page<User> usersPage = userService.searchUsers(q, pageable);
+        Page<UserResponseDTO> usersPage = userService.searchUsers(q, pageable);
 
-        // Convertir entidades a DTOs
-        List<UserResponseDTO> userDTOs = usersPage.getContent().stream()
-                .map(UserResponseDTO::fromEntity)
-                .collect(Collectors.toList());
+        List<UserResponseDTO> userDTOs = usersPage.getContent();
 
         Map<String, Object> response = new HashMap<>();
         response.put("users", userDTOs);
@@ -96,6 +95,32 @@ public class UserController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * GET /api/users/search/cursor?q=termino&size=10&cursor=...
+     * Búsqueda ordenada por relevancia con paginación por cursor
+     *
+     * Para la página siguiente se envía el nextCursor recibido; no hay total ni OFFSET,
+     * así que el costo es el mismo en la primera página que en la centésima
+     */
+    @GetMapping("/search/cursor")
+    public ResponseEntity<Map<String, Object>> searchUsersByRelevance(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
+
+        CursorPage<UserResponseDTO> result = userService.searchUsers(q, cursor, size);
+
+        List<UserResponseDTO> userDTOs = result.getItems();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("users", userDTOs);
+        response.put("nextCursor", result.getNextCursor());
+        response.put("hasMore", result.isHasMore());
+        response.put("searchTerm", q);
+
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * POST /api/users
      * Crear nuevo usuario
@@ -200,11 +225,7 @@ public class UserController {
      */
     @GetMapping("/by-type/{typeId}")
     public ResponseEntity<Map<String, Object>> getUsersByType(@PathVariable Integer typeId) {
-        List<User> users = userService.getUsersByType(typeId);
-
-        List<UserResponseDTO> userDTOs = users.stream()
-                .map(UserResponseDTO::fromEntity)
-                .collect(Collectors.toList());
+        List<UserResponseDTO> userDTOs = userService.getUsersByType(typeId);
 
         Map<String, Object> response = new HashMap<>();
         response.put("userTypeId", typeId);
@@ -232,11 +253,9 @@ public class UserController {
                 : Sort.Direction.DESC;
 
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
-        Page<User> usersPage = userService.getAllUsers(pageable);
+        Page<UserResponseDTO> usersPage = userService.getAllUsers(pageable);
 
-        List<UserResponseDTO> userDTOs = usersPage.getContent().stream()
-                .map(UserResponseDTO::fromEntity)
-                .collect(Collectors.toList());
+        List<UserResponseDTO> userDTOs = usersPage.getContent();
 
         Map<String, Object> response = new HashMap<>();
         response.put("users", userDTOs);
@@ -247,6 +266,69 @@ public class UserController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * GET /api/users/slice?page=0&size=10&approximateTotal=false
+     * Igual que GET /api/users pero sin COUNT: solo indica si hay página siguiente
+     *
+     * approximateTotal=true agrega un total estimado (estadísticas de PostgreSQL, sin recorrer la tabla)
+     */
+    @GetMapping("/slice")
+    public ResponseEntity<Map<String, Object>> getAllUsersSlice(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sort,
+            @RequestParam(defaultValue = "DESC") String direction,
+            @RequestParam(defaultValue = "false") boolean approximateTotal) {
+
+        Slice<UserResponseDTO> usersSlice = userService.getAllUsersSlice(pageRequest(page, size, sort, direction));
+        return ResponseEntity.ok(sliceResponse(usersSlice, approximateTotal));
+    }
+
+    /**
+     * GET /api/users/search/slice?q=termino&page=0&size=10
+     * Igual que GET /api/users/search pero sin COUNT
+     */
+    @GetMapping("/search/slice")
+    public ResponseEntity<Map<String, Object>> searchUsersSlice(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sort,
+            @RequestParam(defaultValue = "DESC") String direction) {
+
+        Slice<UserResponseDTO> usersSlice = userService.searchUsersSlice(q, pageRequest(page, size, sort, direction));
+        Map<String, Object> response = sliceResponse(usersSlice, false);
+        response.put("searchTerm", q);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * GET /api/users/cursor?size=10&cursor=...&approximateTotal=false
+     * Listado por cursor, más recientes primero
+     *
+     * Para la página siguiente se envía el nextCursor recibido; sin COUNT ni OFFSET
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<Map<String, Object>> getAllUsersByCursor(
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean approximateTotal) {
+
+        CursorPage<UserResponseDTO> result = userService.getAllUsers(cursor, size);
+
+        List<UserResponseDTO> userDTOs = result.getItems();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("users", userDTOs);
+        response.put("nextCursor", result.getNextCursor());
+        response.put("hasMore", result.isHasMore());
+        if (approximateTotal) {
+            userService.estimateActiveUsers().ifPresent(total -> response.put("approximateTotal", total));
+        }
+
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * POST /api/users/forgot-password
      * Iniciar proceso de recuperación de contraseña
@@ -254,6 +336,7 @@ public class UserController {
     @PostMapping("/forgot-password")
     public ResponseEntity<Map<String, String>> forgotPassword(@RequestBody Map<String, String> request) {
         String email = request.get("email");
+        rateLimiter.checkEmail(email);
         userService.initiatePasswordReset(email);
 
         Map<String, String> response = new HashMap<>();
@@ -275,4 +358,24 @@ public class UserController {
 
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    private static Pageable pageRequest(int page, int size, String sort, String direction) {
+        Sort.Direction sortDirection = direction.equalsIgnoreCase("ASC")
+                ? Sort.Direction.ASC
+                : Sort.Direction.DESC;
+        return PageRequest.of(page, size, Sort.by(sortDirection, sort));
+    }
+
+    private Map<String, Object> sliceResponse(Slice<UserResponseDTO> usersSlice, boolean approximateTotal) {
+        List<UserResponseDTO> userDTOs = usersSlice.getContent();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("users", userDTOs);
+        response.put("currentPage", usersSlice.getNumber());
+        response.put("hasNext", usersSlice.hasNext());
+        if (approximateTotal) {
+            userService.estimateActiveUsers().ifPresent(total -> response.put("approximateTotal", total));
+        }
+        return response;
+    }
+}
@@ -0,0 +1,19 @@
+package com.mercadoganadero.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Página de resultados con paginación por cursor (keyset)
+ * nextCursor es opaco para el cliente: se envía tal cual para pedir la página siguiente
+ */
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> items;
+    private String nextCursor; // null si no hay más resultados
+    private boolean hasMore;
+}
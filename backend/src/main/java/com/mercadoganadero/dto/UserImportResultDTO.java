@@ -0,0 +1,27 @@
+package com.mercadoganadero.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.mercadoganadero.enums.UserImportStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Resultado por fila de la importación masiva de usuarios
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserImportResultDTO {
+
+    private int row; // Posición en la lista enviada (desde 0)
+    private String email;
+    private UserImportStatus status;
+    private Integer userId; // Solo si se creó
+    private List<String> errors;
+}
@@ -1,6 +1,8 @@
 package com.mercadoganadero.dto;
 
 import com.mercadoganadero.entity.User;
+import com.mercadoganadero.enums.UserRole;
+import com.mercadoganadero.repository.UserSummary;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -8,7 +10,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.OffsetDateTime;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * DTO de respuesta para Usuario
@@ -51,6 +55,8 @@ public class UserResponseDTO {
     // Información adicional útil
     private Boolean isDeleted; // Si deletedAt != null
 
+    private Set<UserRole> roles;
+
     /**
      * Convierte entidad User a DTO
      * Filtra información sensible
@@ -74,6 +80,32 @@ public class UserResponseDTO {
                 .addressId(user.getAddressId())
                 .subscriptionPlanId(user.getSubscriptionPlanId())
                 .isDeleted(user.getDeletedAt() != null)
+                .roles(user.getRoles() != null ? new HashSet<>(user.getRoles()) : null)
+                .build();
+    }
+
+    /**
+     * Versión para listados, desde la proyección UserSummary
+     * No incluye settings ni notificationPreferences (no se leen de la BD en los listados)
+     */
+    public static UserResponseDTO fromSummary(UserSummary user, Set<UserRole> roles) {
+        return UserResponseDTO.builder()
+                .userId(user.getUserId())
+                .name(user.getName())
+                .lastName(user.getLastName())
+                .email(user.getEmail())
+                .phoneNumber(user.getPhoneNumber())
+                .createdAt(user.getCreatedAt())
+                .updatedAt(user.getUpdatedAt())
+                .lastLogin(user.getLastLogin())
+                .isActive(user.getIsActive())
+                .emailVerified(user.getEmailVerified())
+                .tfaEnabled(user.getTfaEnabled())
+                .userTypeId(user.getUserTypeId())
+                .addressId(user.getAddressId())
+                .subscriptionPlanId(user.getSubscriptionPlanId())
+                .isDeleted(user.getDeletedAt() != null)
+                .roles(roles)
                 .build();
     }
 
@@ -0,0 +1,54 @@
+package com.mercadoganadero.entity;
+
+import com.mercadoganadero.enums.OneTimeTokenPurpose;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Token de un solo uso: reseteo de contraseña y verificación de email
+ * Igual que los refresh tokens, solo se guarda el digest SHA-256 (32 bytes) del valor
+ * Se elimina al usarse; los expirados los borra OneTimeTokenService.purgeExpired (migración 006)
+ */
+@Entity
+@Table(name = "one_time_tokens", indexes = {
+        @Index(name = "uq_one_time_tokens_token_hash", columnList = "token_hash", unique = true),
+        @Index(name = "idx_one_time_tokens_user_purpose", columnList = "user_id, purpose"),
+        @Index(name = "idx_one_time_tokens_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OneTimeToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "token_hash", nullable = false, columnDefinition = "bytea")
+    private byte[] tokenHash;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "purpose", nullable = false, length = 32)
+    private OneTimeTokenPurpose purpose;
+
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private OffsetDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = OffsetDateTime.now();
+    }
+}
@@ -11,11 +11,15 @@ import java.time.OffsetDateTime;
 /**
  * Entidad para gestionar tokens de refresco
  * Permite revocar sesiones y detectar tokens robados
+ * El token nunca se guarda en claro: solo su digest SHA-256 (32 bytes)
+ * Tabla particionada por semana según expires_at (PK real: id + expires_at, ver migración 002)
  */
 @Entity
 @Table(name = "refresh_tokens", indexes = {
-        @Index(name = "idx_token", columnList = "token"),
-        @Index(name = "idx_user_id", columnList = "user_id")
+        @Index(name = "idx_refresh_tokens_token_hash", columnList = "token_hash"),
+        @Index(name = "idx_refresh_token_user_id", columnList = "user_id"),
+        // Parcial (WHERE revoked_at IS NULL): la definición real está en la migración 003
+        @Index(name = "idx_refresh_tokens_user_active", columnList = "user_id, created_at DESC")
 })
 @Data
 @NoArgsConstructor
@@ -28,7 +32,11 @@ public class RefreshToken {
     @Column(name = "id")
     private Long id;
 
-    @Column(name = "token", nullable = false, unique = true, length = 500)
+    @Column(name = "token_hash", nullable = false, columnDefinition = "bytea")
+    private byte[] tokenHash;
+
+    // Valor en claro, solo disponible al emitir el token para devolverlo al cliente
+    @Transient
     private String token;
 
     @Column(name = "user_id", nullable = false)
@@ -43,8 +51,8 @@ public class RefreshToken {
     @Column(name = "revoked_at")
     private OffsetDateTime revokedAt;
 
-    @Column(name = "replaced_by_token")
-    private String replacedByToken;
+    @Column(name = "replaced_by_token_hash", columnDefinition = "bytea")
+    private byte[] replacedByTokenHash;
 
     // IP y User Agent para detección de robo
     @Column(name = "ip_address", length = 45)
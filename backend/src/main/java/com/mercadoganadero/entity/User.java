@@ -7,17 +7,29 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.hibernate.type.SqlTypes;
 
 import java.util.*;
 
+/**
+ * Usuario del marketplace
+ * En caché de segundo nivel (regiones users, users_roles y users_by_email, ver application.conf);
+ * cualquier escritura fuera de Hibernate o en otro nodo debe pasar por UserCacheInvalidator
+ */
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = UserCacheRegions.ENTITY)
+@NaturalIdCache(region = UserCacheRegions.BY_EMAIL)
 @Data // Genera getters, setters, toString, etc.
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class User {
 
     @Id
@@ -31,6 +43,7 @@ public class User {
     @Column(name = "last_name", nullable = false, length = 200)
     private String lastName;
 
+    @NaturalId(mutable = true)
     @Column(name = "email", nullable = false, unique = true, length = 250)
     private String email;
 
@@ -79,6 +92,7 @@ public class User {
 
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = UserCacheRegions.ROLES)
     @Column(name = "role")
     @Enumerated(EnumType.STRING)
     @Builder.Default
@@ -93,14 +107,7 @@ public class User {
     @Column(name = "subscription_plan_id", nullable = false)
     private Integer subscriptionPlanId;
 
-    @Column(name = "password_reset_token")
-    private String passwordResetToken;
-
-    @Column(name = "password_reset_token_expiry_date")
-    private OffsetDateTime passwordResetTokenExpiryDate;
-
-    @Column(name = "email_verification_token")
-    private String emailVerificationToken;
+    // Los tokens de reseteo y verificación viven en one_time_tokens (ver OneTimeToken)
 
     @Column(name = "tfa_secret")
     private String tfaSecret;
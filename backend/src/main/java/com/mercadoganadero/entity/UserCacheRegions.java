@@ -0,0 +1,14 @@
+package com.mercadoganadero.entity;
+
+/**
+ * Nombres de las regiones de caché de segundo nivel de User (configuradas en application.conf)
+ */
+public final class UserCacheRegions {
+
+    public static final String ENTITY = "users";
+    public static final String ROLES = "users_roles";
+    public static final String BY_EMAIL = "users_by_email";
+
+    private UserCacheRegions() {
+    }
+}
@@ -0,0 +1,9 @@
+package com.mercadoganadero.enums;
+
+/**
+ * Uso de un token de un solo uso (tabla one_time_tokens)
+ */
+public enum OneTimeTokenPurpose {
+    PASSWORD_RESET,
+    EMAIL_VERIFICATION
+}
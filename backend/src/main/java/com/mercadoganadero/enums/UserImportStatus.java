@@ -0,0 +1,10 @@
+package com.mercadoganadero.enums;
+
+/**
+ * Resultado de una fila en la importación masiva de usuarios
+ */
+public enum UserImportStatus {
+    CREATED,
+    INVALID,    // Datos o contraseña no válidos, o referencias inexistentes
+    DUPLICATE   // Email ya registrado o repetido en el mismo lote
+}
@@ -0,0 +1,10 @@
+package com.mercadoganadero.exception;
+
+/**
+ * Excepción para parámetros de consulta inválidos (ej: término de búsqueda o cursor)
+ */
+public class InvalidRequestException extends RuntimeException {
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
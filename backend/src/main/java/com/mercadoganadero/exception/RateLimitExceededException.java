@@ -0,0 +1,18 @@
+package com.mercadoganadero.exception;
+
+/**
+ * Excepción cuando un cliente o cuenta supera el límite de intentos (429)
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,19 @@
+package com.mercadoganadero.exception;
+
+/**
+ * Excepción cuando un recurso limitado (ej: el pool de hashing de contraseñas) está saturado
+ * Se responde 503 con Retry-After para que el cliente reintente más tarde
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,44 @@
+package com.mercadoganadero.repository;
+
+import com.mercadoganadero.entity.OneTimeToken;
+import com.mercadoganadero.enums.OneTimeTokenPurpose;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+@Repository
+public interface OneTimeTokenRepository extends JpaRepository<OneTimeToken, Long> {
+
+    /**
+     * Consume un token vigente en una sola sentencia (búsqueda por índice único + borrado)
+     * Si dos peticiones usan el mismo token a la vez, solo una recibe el user_id
+     * @return user_id del token consumido, o vacío si no existe, expiró o es de otro uso
+     */
+    @Query(value = """
+            DELETE FROM one_time_tokens
+             WHERE token_hash = :tokenHash
+               AND purpose = :purpose
+               AND expires_at > :now
+            RETURNING user_id
+            """, nativeQuery = true)
+    Optional<Integer> consume(@Param("tokenHash") byte[] tokenHash,
+                              @Param("purpose") String purpose,
+                              @Param("now") OffsetDateTime now);
+
+    /**
+     * Solo para distinguir un token expirado de uno inexistente al rechazarlo
+     */
+    boolean existsByTokenHashAndPurpose(byte[] tokenHash, OneTimeTokenPurpose purpose);
+
+    /**
+     * Invalida los tokens anteriores del mismo uso: solo el último emitido es válido
+     */
+    @Modifying
+    @Query("DELETE FROM OneTimeToken t WHERE t.userId = :userId AND t.purpose = :purpose")
+    int deleteByUserIdAndPurpose(@Param("userId") Integer userId, @Param("purpose") OneTimeTokenPurpose purpose);
+}
@@ -8,40 +8,93 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.OffsetDateTime;
-import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
 
     /**
-     * Busca un refresh token por su valor
+     * Busca un refresh token por el digest SHA-256 de su valor, incluso si ya expiró
+     * Recorre todas las particiones: solo para diagnosticar por qué un token no es válido
      */
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(byte[] tokenHash);
 
     /**
-     * Busca todos los tokens activos de un usuario
+     * Busca un refresh token vigente por su digest; expires_at permite descartar particiones vencidas
      */
-    @Query("SELECT rt FROM RefreshToken rt WHERE rt.userId = :userId AND rt.revokedAt IS NULL")
-    List<RefreshToken> findActiveTokensByUserId(@Param("userId") Integer userId);
+    Optional<RefreshToken> findByTokenHashAndExpiresAtAfter(byte[] tokenHash, OffsetDateTime now);
+
+    /**
+     * Rota un refresh token en una sola sentencia (CTE):
+     * revoca el token anterior, lo enlaza con replaced_by_token_hash e inserta el sucesor.
+     * El UPDATE solo afecta tokens vigentes; si dos peticiones rotan el mismo token a la vez,
+     * la segunda espera el bloqueo de fila, ya lo ve revocado y no inserta nada.
+     * @return user_id del token rotado, o vacío si el token no era válido
+     */
+    @Query(value = """
+            WITH rotated AS (
+                UPDATE refresh_tokens
+                   SET revoked_at = :now, replaced_by_token_hash = :newTokenHash
+                 WHERE token_hash = :oldTokenHash
+                   AND revoked_at IS NULL
+                   AND replaced_by_token_hash IS NULL
+                   AND expires_at > :now
+             RETURNING user_id
+            )
+            INSERT INTO refresh_tokens (token_hash, user_id, expires_at, created_at, ip_address, user_agent)
+            SELECT :newTokenHash, user_id, :expiresAt, :now, :ipAddress, :userAgent FROM rotated
+            RETURNING user_id
+            """, nativeQuery = true)
+    Optional<Integer> rotateToken(@Param("oldTokenHash") byte[] oldTokenHash,
+                                  @Param("newTokenHash") byte[] newTokenHash,
+                                  @Param("now") OffsetDateTime now,
+                                  @Param("expiresAt") OffsetDateTime expiresAt,
+                                  @Param("ipAddress") String ipAddress,
+                                  @Param("userAgent") String userAgent);
 
     /**
      * Revoca todos los tokens activos de un usuario (para logout global)
      */
     @Modifying
-    @Query("UPDATE RefreshToken rt SET rt.revokedAt = :revokedAt WHERE rt.userId = :userId AND rt.revokedAt IS NULL")
+    @Query("UPDATE RefreshToken rt SET rt.revokedAt = :revokedAt WHERE rt.userId = :userId AND rt.revokedAt IS NULL AND rt.expiresAt > :revokedAt")
     void revokeAllUserTokens(@Param("userId") Integer userId, @Param("revokedAt") OffsetDateTime revokedAt);
 
     /**
-     * Elimina tokens expirados (limpieza automática)
+     * Marca como revocados los tokens expirados que nunca se revocaron, para sacarlos de
+     * idx_refresh_tokens_user_active (parcial, WHERE revoked_at IS NULL); se llama en cada login
+     * antes de revokeSessionsBeyond
+     * @return número de tokens retirados del índice
      */
     @Modifying
-    @Query("DELETE FROM RefreshToken rt WHERE rt.expiresAt < :now")
-    void deleteExpiredTokens(@Param("now") OffsetDateTime now);
+    @Query(value = """
+            UPDATE refresh_tokens
+               SET revoked_at = :now
+             WHERE user_id = :userId
+               AND revoked_at IS NULL
+               AND expires_at <= :now
+            """, nativeQuery = true)
+    int retireExpiredTokens(@Param("userId") Integer userId, @Param("now") OffsetDateTime now);
 
     /**
-     * Cuenta tokens activos de un usuario
+     * Revoca las sesiones activas de un usuario que exceden las "keep" más recientes
+     * Recorre idx_refresh_tokens_user_active: tras retireExpiredTokens solo quedan en el índice las
+     * sesiones vigentes (la rotación revoca el token anterior al emitir el nuevo), así que el costo
+     * depende del límite de sesiones y no del historial de tokens del usuario
+     * @return número de sesiones revocadas
      */
-    @Query("SELECT COUNT(rt) FROM RefreshToken rt WHERE rt.userId = :userId AND rt.revokedAt IS NULL AND rt.expiresAt > :now")
-    long countActiveTokensByUserId(@Param("userId") Integer userId, @Param("now") OffsetDateTime now);
-}
\ No newline at end of file
+    @Modifying
+    @Query(value = """
+            UPDATE refresh_tokens
+               SET revoked_at = :now
+             WHERE (id, expires_at) IN (
+                   SELECT id, expires_at FROM refresh_tokens
+                    WHERE user_id = :userId
+                      AND revoked_at IS NULL
+                      AND expires_at > :now
+                    ORDER BY created_at DESC
+                   OFFSET :keep)
+            """, nativeQuery = true)
+    int revokeSessionsBeyond(@Param("userId") Integer userId,
+                             @Param("keep") int keep,
+                             @Param("now") OffsetDateTime now);
+}
@@ -2,27 +2,27 @@ package com.mercadoganadero.repository;
 
 import com.mercadoganadero.entity.User;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Integer> {
+public interface UserRepository extends JpaRepository<User, Integer>, UserRepositoryCustom {
+
+    String SEARCH_MATCH = "LOWER(u.name || ' ' || u.lastName || ' ' || u.email) LIKE :pattern ESCAPE '\\'";
 
     // ==============================================================================
     // BÚSQUEDA BÁSICA Y VALIDACIÓN (existentes y necesarios)
     // ==============================================================================
 
-    /** Buscar usuario por email (incluye inactivos o con soft delete) */
-    Optional<User> findByEmail(String email);
-
-    /** Buscar usuario por email (solo activos y no eliminados), usado en CustomUserDetailsService */
-    @Query("SELECT u FROM User u WHERE u.email = :email AND u.isActive = true AND u.deletedAt IS NULL")
-    Optional<User> findActiveByEmail(String email);
+    // findByEmail y findActiveByEmail: ver UserRepositoryCustom (natural id en caché)
 
     /** Verificar si existe un email */
     boolean existsByEmail(String email);
@@ -35,33 +35,47 @@ public interface UserRepository extends JpaRepository<User, Integer> {
     // MÉTODOS REQUERIDOS POR UserServiceImpl (Paginación y Filtros)
     // ==============================================================================
 
+    // Los listados devuelven la proyección UserSummary (sin jsonb ni roles): una sola consulta por página,
+    // más la de roles (findRolesByUserIds) y el COUNT en las variantes Page
+
     /** 1. Paginación de usuarios activos (para getAllUsers) */
-    Page<User> findByDeletedAtIsNull(Pageable pageable);
+    @Query(value = "SELECT " + UserSummary.JPQL_SELECT + " FROM User u WHERE u.deletedAt IS NULL",
+            countQuery = "SELECT COUNT(u) FROM User u WHERE u.deletedAt IS NULL")
+    Page<UserSummary> findSummaries(Pageable pageable);
 
     /** 2. Búsqueda de usuarios (para searchUsers) */
-    // Realiza una búsqueda case-insensitive en nombre, apellido y email, excluyendo eliminados.
-    @Query("SELECT u FROM User u WHERE u.deletedAt IS NULL AND (LOWER(u.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR LOWER(u.lastName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR LOWER(u.email) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
-    Page<User> searchUsers(String searchTerm, Pageable pageable);
+    // Búsqueda case-insensitive en nombre, apellido y email, excluyendo eliminados.
+    // La expresión coincide con idx_users_search_trgm (migración 007); pattern ya viene en minúsculas y escapado.
+    @Query(value = "SELECT " + UserSummary.JPQL_SELECT + " FROM User u WHERE u.deletedAt IS NULL AND " + SEARCH_MATCH,
+            countQuery = "SELECT COUNT(u) FROM User u WHERE u.deletedAt IS NULL AND " + SEARCH_MATCH)
+    Page<UserSummary> searchSummaries(String pattern, Pageable pageable);
+
+    /** 2b. Variantes sin COUNT: Slice solo pide una fila extra para saber si hay página siguiente */
+    @Query("SELECT " + UserSummary.JPQL_SELECT + " FROM User u WHERE u.deletedAt IS NULL")
+    Slice<UserSummary> findSummarySlice(Pageable pageable);
+
+    @Query("SELECT " + UserSummary.JPQL_SELECT + " FROM User u WHERE u.deletedAt IS NULL AND " + SEARCH_MATCH)
+    Slice<UserSummary> searchSummarySlice(String pattern, Pageable pageable);
+
+    /** 2c. Listado por cursor (keyset), más recientes primero; servido por idx_users_active_keyset (migración 008) */
+    @Query("SELECT " + UserSummary.JPQL_SELECT + " FROM User u WHERE u.deletedAt IS NULL ORDER BY u.createdAt DESC, u.userId DESC")
+    List<UserSummary> findActiveNewest(Limit limit);
+
+    @Query("SELECT " + UserSummary.JPQL_SELECT + " FROM User u WHERE u.deletedAt IS NULL"
+            + " AND (u.createdAt, u.userId) < (:createdAt, :userId) ORDER BY u.createdAt DESC, u.userId DESC")
+    List<UserSummary> findActiveCreatedBefore(OffsetDateTime createdAt, Integer userId, Limit limit);
+
+    /** 2d. Filas de una página de la búsqueda por relevancia (searchByRelevance solo devuelve ids y scores) */
+    @Query("SELECT " + UserSummary.JPQL_SELECT + " FROM User u WHERE u.userId IN :userIds")
+    List<UserSummary> findSummariesByIds(Collection<Integer> userIds);
 
     /** 3. Listado por tipo (para getUsersByType), excluyendo eliminados */
-    List<User> findByUserTypeIdAndDeletedAtIsNull(Integer userTypeId);
+    @Query("SELECT " + UserSummary.JPQL_SELECT + " FROM User u WHERE u.userTypeId = :userTypeId AND u.deletedAt IS NULL")
+    List<UserSummary> findSummariesByUserType(Integer userTypeId);
 
     /** 4. Conteo de usuarios activos (para countActiveUsers) */
     long countByDeletedAtIsNull();
 
     /** 5. Búsqueda de usuario que actualizó su último login (para updateLastLogin) */
     // Ya cubierto por JpaRepository.findById(Integer) y el Optional.ifPresent
-
-    // ==============================================================================
-    // MÉTODOS REQUERIDOS PARA SEGURIDAD (Tokens)
-    // ==============================================================================
-
-    /** 6. Búsqueda por token de reseteo (para resetPassword) */
-    Optional<User> findByPasswordResetToken(String token);
-
-    /** 7. Búsqueda por token de verificación de email (para verifyEmail) */
-    Optional<User> findByEmailVerificationToken(String token);
-
-    // NOTA: Para que los métodos 6 y 7 funcionen, tu entidad User.java
-    // debe tener los campos 'passwordResetToken' y 'emailVerificationToken'.
-}
\ No newline at end of file
+}
@@ -0,0 +1,47 @@
+package com.mercadoganadero.repository;
+
+import com.mercadoganadero.entity.User;
+import com.mercadoganadero.enums.UserRole;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Búsquedas por email resueltas con el natural id de User (caché users_by_email + users)
+ * en lugar de una consulta JPQL, que siempre iría a la BD
+ */
+public interface UserRepositoryCustom {
+
+    /** Buscar usuario por email (incluye inactivos o con soft delete) */
+    Optional<User> findByEmail(String email);
+
+    /** Buscar usuario por email (solo activos y no eliminados), usado en CustomUserDetailsService */
+    Optional<User> findActiveByEmail(String email);
+
+    /**
+     * Búsqueda "contiene" sobre nombre, apellido y email servida por el índice de trigramas
+     * (migración 007), ordenada por relevancia y paginada por keyset (score, user_id)
+     * Solo ids y scores: las columnas del listado se piden con findSummariesByIds
+     * @param pattern     patrón LIKE ya en minúsculas y escapado, ej: %juan%
+     * @param term        término en minúsculas, para la puntuación
+     * @param afterScore  score del último resultado de la página anterior (null = primera página)
+     * @param afterUserId user_id del último resultado de la página anterior
+     */
+    List<UserSearchHit> searchByRelevance(String pattern, String term, Float afterScore, Integer afterUserId, int limit);
+
+    /**
+     * Estimación de usuarios no eliminados a partir de las estadísticas del planner
+     * (pg_class.reltuples × fracción de deleted_at NULL en pg_stats), sin recorrer la tabla
+     * @return vacío si la tabla aún no fue analizada
+     */
+    Optional<Long> estimateActiveUsers();
+
+    /**
+     * Roles de varios usuarios en una sola consulta (evita un SELECT de user_roles por fila)
+     * Los IDs viajan como un único parámetro array: no hay límite práctico de cantidad
+     */
+    Map<Integer, Set<UserRole>> findRolesByUserIds(Collection<Integer> userIds);
+}
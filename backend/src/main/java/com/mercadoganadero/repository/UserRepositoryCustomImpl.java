@@ -0,0 +1,115 @@
+package com.mercadoganadero.repository;
+
+import com.mercadoganadero.entity.User;
+import com.mercadoganadero.enums.UserRole;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+@Slf4j
+class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    // Debe coincidir con la expresión de idx_users_search_trgm (migración 007)
+    private static final String SEARCH_DOCUMENT = "lower(u.name || ' ' || u.last_name || ' ' || u.email)";
+
+    // Coincidencia por palabra completa primero; a igualdad, documentos más cortos (más parecidos)
+    private static final String SEARCH_SCORE = "(strict_word_similarity(:term, " + SEARCH_DOCUMENT + ") + similarity(:term, " + SEARCH_DOCUMENT + "))";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        Session session = entityManager.unwrap(Session.class);
+        User user = session.bySimpleNaturalId(User.class).load(email);
+        if (user == null || email.equals(user.getEmail())) {
+            return Optional.ofNullable(user);
+        }
+
+        // Resolución email -> id obsoleta (el email cambió en otro nodo): se descarta y se consulta la BD
+        log.debug("Resolución de natural id obsoleta para {}, se consulta la BD", email);
+        session.getSessionFactory().getCache().evictNaturalIdData(User.class);
+        return entityManager.createQuery("SELECT u FROM User u WHERE u.email = :email", User.class)
+                .setParameter("email", email)
+                .getResultStream()
+                .findFirst();
+    }
+
+    @Override
+    public Optional<User> findActiveByEmail(String email) {
+        return findByEmail(email)
+                .filter(user -> Boolean.TRUE.equals(user.getIsActive()) && user.getDeletedAt() == null);
+    }
+
+    @Override
+    public List<UserSearchHit> searchByRelevance(String pattern, String term, Float afterScore, Integer afterUserId, int limit) {
+        // Solo ids y scores: las coincidencias se puntúan sin leer las filas completas
+        String sql = "SELECT s.user_id, s.score FROM ("
+                + " SELECT u.user_id, CAST(" + SEARCH_SCORE + " AS real) AS score"
+                + "   FROM users u"
+                + "  WHERE u.deleted_at IS NULL"
+                + "    AND " + SEARCH_DOCUMENT + " LIKE :pattern ESCAPE '\\'"
+                + ") s"
+                + (afterScore != null ? " WHERE s.score < :afterScore OR (s.score = :afterScore AND s.user_id > :afterUserId)" : "")
+                + " ORDER BY s.score DESC, s.user_id"
+                + " LIMIT :limit";
+
+        var query = entityManager.createNativeQuery(sql)
+                .setParameter("pattern", pattern)
+                .setParameter("term", term)
+                .setParameter("limit", limit);
+        if (afterScore != null) {
+            query.setParameter("afterScore", afterScore).setParameter("afterUserId", afterUserId);
+        }
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+        return rows.stream()
+                .map(row -> new UserSearchHit(((Number) row[0]).intValue(), ((Number) row[1]).floatValue()))
+                .toList();
+    }
+
+    @Override
+    public Optional<Long> estimateActiveUsers() {
+        Object estimate = entityManager.createNativeQuery("""
+                SELECT CAST(round(c.reltuples * COALESCE(s.null_frac, 1)) AS bigint)
+                  FROM pg_class c
+                  LEFT JOIN pg_stats s
+                    ON s.schemaname = 'public' AND s.tablename = 'users' AND s.attname = 'deleted_at'
+                 WHERE c.oid = CAST('public.users' AS regclass)
+                   AND c.reltuples >= 0
+                """).getResultStream().findFirst().orElse(null);
+        return Optional.ofNullable(estimate).map(value -> ((Number) value).longValue());
+    }
+
+    @Override
+    public Map<Integer, Set<UserRole>> findRolesByUserIds(Collection<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        // Un solo parámetro array: con IN :userIds Hibernate enlaza uno por elemento y PostgreSQL
+        // rechaza sentencias con más de 65535 parámetros (ej: getUsersByType de un tipo muy grande)
+        Map<Integer, Set<UserRole>> roles = new HashMap<>();
+        List<?> rows = entityManager.createNativeQuery(
+                        "SELECT r.user_id, r.role FROM user_roles r WHERE r.user_id = ANY(CAST(:userIds AS int[]))")
+                .setParameter("userIds", userIds.toArray(Integer[]::new))
+                .getResultList();
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            roles.computeIfAbsent(((Number) columns[0]).intValue(), id -> EnumSet.noneOf(UserRole.class))
+                    .add(UserRole.valueOf((String) columns[1]));
+        }
+        return roles;
+    }
+}
@@ -0,0 +1,13 @@
+package com.mercadoganadero.repository;
+
+import lombok.Value;
+
+/**
+ * Resultado de la búsqueda por relevancia: id del usuario y su puntuación (mayor = más relevante)
+ * Las columnas del listado se leen aparte con UserRepository.findSummariesByIds
+ */
+@Value
+public class UserSearchHit {
+    Integer userId;
+    float score;
+}
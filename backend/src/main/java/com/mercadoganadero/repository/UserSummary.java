@@ -0,0 +1,48 @@
+package com.mercadoganadero.repository;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Proyección de User para listados: solo las columnas que muestra UserResponseDTO en una lista,
+ * sin los jsonb (settings, notification_preferences) ni la colección EAGER de roles
+ * (los roles se cargan aparte para toda la página con UserRepository.findRolesByUserIds)
+ */
+public interface UserSummary {
+
+    /** Lista de columnas para @Query; los alias deben coincidir con los getters */
+    String JPQL_SELECT = "u.userId AS userId, u.name AS name, u.lastName AS lastName, u.email AS email, "
+            + "u.phoneNumber AS phoneNumber, u.createdAt AS createdAt, u.updatedAt AS updatedAt, "
+            + "u.lastLogin AS lastLogin, u.isActive AS isActive, u.emailVerified AS emailVerified, "
+            + "u.tfaEnabled AS tfaEnabled, u.userTypeId AS userTypeId, u.addressId AS addressId, "
+            + "u.subscriptionPlanId AS subscriptionPlanId, u.deletedAt AS deletedAt";
+
+    Integer getUserId();
+
+    String getName();
+
+    String getLastName();
+
+    String getEmail();
+
+    String getPhoneNumber();
+
+    OffsetDateTime getCreatedAt();
+
+    OffsetDateTime getUpdatedAt();
+
+    OffsetDateTime getLastLogin();
+
+    Boolean getIsActive();
+
+    Boolean getEmailVerified();
+
+    Boolean getTfaEnabled();
+
+    Integer getUserTypeId();
+
+    Integer getAddressId();
+
+    Integer getSubscriptionPlanId();
+
+    OffsetDateTime getDeletedAt();
+}
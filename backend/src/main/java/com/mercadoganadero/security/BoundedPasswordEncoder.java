@@ -0,0 +1,167 @@
+package com.mercadoganadero.security;
+
+import com.mercadoganadero.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PasswordEncoder que ejecuta el hashing (BCrypt, ~250 ms de CPU) en un pool dedicado
+ * - Hilos = núcleos de CPU, cola acotada: una ráfaga de logins no consume toda la CPU del servidor
+ * - Cola llena o espera excedida -> ServiceOverloadedException (503 + Retry-After) sin hashear
+ * - encodeAll reparte un lote (importación masiva) entre los hilos sin llenar la cola
+ * Métricas: password_encoder.queue.size, password_encoder.active, password_encoder.duration{operation},
+ * password_encoder.rejected
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final long retryAfterSeconds;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int poolSize, int queueCapacity,
+                                  long timeoutMs, long retryAfterSeconds, MeterRegistry meterRegistry) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        this.delegate = delegate;
+        this.timeoutMs = timeoutMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("password_encoder.duration")
+                .description("Tiempo de hashing, sin contar la espera en cola")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("password_encoder.duration")
+                .description("Tiempo de hashing, sin contar la espera en cola")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("password_encoder.rejected")
+                .description("Operaciones rechazadas por saturación del pool")
+                .register(meterRegistry);
+        Gauge.builder("password_encoder.queue.size", executor, e -> e.getQueue().size())
+                .description("Operaciones esperando un hilo de hashing")
+                .register(meterRegistry);
+        Gauge.builder("password_encoder.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hilos de hashing ocupados")
+                .register(meterRegistry);
+
+        log.info("Pool de hashing de contraseñas: {} hilos, cola de {}", threads, queueCapacity);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> encodeTimer.record(() -> delegate.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * Solo inspecciona el hash almacenado (no hashea), se ejecuta en el hilo actual
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Hashea varias contraseñas en paralelo (importación masiva de usuarios)
+     * Nunca hay más tareas en vuelo que hilos: la cola sigue libre para los logins
+     * @return hashes en el mismo orden que rawPasswords
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        int window = executor.getMaximumPoolSize();
+        List<String> hashes = new ArrayList<>(rawPasswords.size());
+        Deque<Future<String>> inFlight = new ArrayDeque<>(window);
+        try {
+            for (CharSequence rawPassword : rawPasswords) {
+                if (inFlight.size() == window) {
+                    hashes.add(await(inFlight.poll()));
+                }
+                inFlight.add(enqueue(() -> encodeTimer.record(() -> delegate.encode(rawPassword))));
+            }
+            while (!inFlight.isEmpty()) {
+                hashes.add(await(inFlight.poll()));
+            }
+            return hashes;
+        } finally {
+            inFlight.forEach(future -> future.cancel(true)); // Solo quedan si hubo un error
+        }
+    }
+
+    private <T> T submit(Callable<T> task) {
+        return await(enqueue(task));
+    }
+
+    private <T> Future<T> enqueue(Callable<T> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException ex) {
+            throw overloaded();
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true); // Si aún no empezó, se descarta sin consumir CPU
+            throw overloaded();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw overloaded();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Error al procesar la contraseña", ex.getCause());
+        }
+    }
+
+    private ServiceOverloadedException overloaded() {
+        rejected.increment();
+        log.warn("Pool de hashing saturado (cola: {}). Petición rechazada.", executor.getQueue().size());
+        return new ServiceOverloadedException(
+                "El servicio está ocupado. Por favor, intente de nuevo en unos segundos.", retryAfterSeconds);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
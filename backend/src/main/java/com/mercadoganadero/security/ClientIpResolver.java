@@ -0,0 +1,21 @@
+package com.mercadoganadero.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Obtiene la IP real del cliente (clave del límite por IP y dato de auditoría de las sesiones)
+ * No lee X-Forwarded-For: el primer valor lo escribe el cliente y cambiarlo en cada petición
+ * daría un bucket nuevo cada vez. Detrás de un proxy, server.forward-headers-strategy=native
+ * (RemoteIpValve de Tomcat) reemplaza la dirección remota por el salto más a la derecha que
+ * no sea un proxy de confianza (server.tomcat.remoteip.internal-proxies); sin proxy configurado,
+ * es la dirección de la conexión.
+ */
+public final class ClientIpResolver {
+
+    private ClientIpResolver() {
+    }
+
+    public static String resolve(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+}
@@ -1,27 +1,48 @@
 package com.mercadoganadero.security;
 
 import com.mercadoganadero.entity.User;
+import org.springframework.security.core.CredentialsContainer;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.Collections;
+import java.util.HashSet;
 import lombok.Getter;
 
 @Getter // Para poder acceder al userId desde el filtro
-public class CustomUserDetails implements UserDetails {
+public class CustomUserDetails implements UserDetails, CredentialsContainer {
 
     private Integer userId;
     private String email;
     private String password;
     private Collection<? extends GrantedAuthority> authorities;
+    private boolean enabled;
+
+    // Copia desconectada del usuario cargado al autenticar (con roles, sin hash, salt ni secreto TFA);
+    // null si el principal viene de un JWT
+    private User user;
 
     public CustomUserDetails(User user) {
         this.userId = user.getUserId();
         this.email = user.getEmail();
         this.password = user.getPasswordHash(); // Contraseña hasheada
-        // TODO: cargar roles/autoridades
-        this.authorities = Collections.emptyList();
+        this.authorities = user.getRoles().stream()
+                .map(role -> new SimpleGrantedAuthority(role.getAuthority()))
+                .toList();
+        this.enabled = Boolean.TRUE.equals(user.getIsActive());
+        this.user = withoutCredentials(user);
+    }
+
+    /**
+     * Principal construido a partir de los claims de un JWT ya verificado (sin consultar la BD)
+     */
+    public CustomUserDetails(Integer userId, String email, Collection<? extends GrantedAuthority> authorities) {
+        this.userId = userId;
+        this.email = email;
+        this.password = null; // Nunca viaja en el token
+        this.authorities = authorities;
+        this.enabled = true;
     }
 
     // Métodos de la interfaz UserDetails (implementación mínima)
@@ -51,5 +72,24 @@ public class CustomUserDetails implements UserDetails {
 
     // Usamos el campo isActive de tu entidad
     @Override
-    public boolean isEnabled() { return true; }
+    public boolean isEnabled() { return enabled; }
+
+    // ProviderManager borra la contraseña del principal tras autenticar
+    @Override
+    public void eraseCredentials() {
+        this.password = null;
+    }
+
+    /**
+     * Copia fuera del contexto de persistencia: limpiar credenciales en la entidad administrada
+     * se escribiría en la BD (y en la caché de segundo nivel) al cerrar la transacción
+     */
+    private static User withoutCredentials(User user) {
+        return user.toBuilder()
+                .passwordHash(null)
+                .passwordSalt(null)
+                .tfaSecret(null)
+                .roles(new HashSet<>(user.getRoles()))
+                .build();
+    }
 }
\ No newline at end of file
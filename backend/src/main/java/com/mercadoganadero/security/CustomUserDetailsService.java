@@ -2,29 +2,27 @@ package com.mercadoganadero.security;
 
 import com.mercadoganadero.entity.User;
 import com.mercadoganadero.repository.UserRepository;
+import com.mercadoganadero.service.UserCacheInvalidator;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collection;
-import java.util.stream.Collectors;
-
-import java.util.ArrayList; // Para simular roles/autoridades
-
 /**
  * Carga los datos del usuario para el contexto de Spring Security.
  * Spring Security requiere esta clase para manejar la autenticación.
  */
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+@Slf4j
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserCacheInvalidator userCacheInvalidator;
 
     /**
      * Este método es llamado por Spring Security para cargar al usuario
@@ -36,7 +34,7 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Override
     @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        // Usamos el método findActiveByEmail definido en UserRepository
+        // findActiveByEmail resuelve el email por natural id: normalmente sale de la caché de segundo nivel
         User user = userRepository.findActiveByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado o inactivo con email: " + email));
 
@@ -44,20 +42,29 @@ public class CustomUserDetailsService implements UserDetailsService {
         if (!user.getIsActive()) {
             throw new UsernameNotFoundException("La cuenta ha sido desactivada");
         }
-        // Convertir roles a authorities de Spring Security
-        Collection<GrantedAuthority> authorities = user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority(role.getAuthority()))
-                .collect(Collectors.toList());
-        // Convertimos tu entidad User a un objeto UserDetails de Spring Security.
-        // Spring Security necesita su propio objeto User para el contexto.
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getEmail())
-                .password(user.getPasswordHash())
-                .authorities(authorities)
-                .accountExpired(false)
-                .accountLocked(false)
-                .credentialsExpired(false)
-                .disabled(!user.getIsActive())
-                .build();
+        // El principal conserva el User cargado (con roles): el login lo reutiliza sin volver a consultar
+        return new CustomUserDetails(user);
+    }
+
+    /**
+     * Llamado por DaoAuthenticationProvider tras un login exitoso cuando el hash almacenado
+     * usa otro algoritmo o costo (PasswordEncoder.upgradeEncoding)
+     * @param newPassword hash nuevo, ya calculado con la configuración actual
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        return userRepository.findActiveByEmail(userDetails.getUsername())
+                .map(user -> {
+                    String previousAlgorithm = user.getPasswordAlgorithm();
+                    user.setPasswordHash(newPassword);
+                    user.setPasswordAlgorithm(PasswordEncoders.algorithmOf(newPassword));
+                    log.info("Hash de contraseña actualizado para {} ({} -> {})",
+                            user.getEmail(), previousAlgorithm, user.getPasswordAlgorithm());
+                    User savedUser = userRepository.save(user);
+                    userCacheInvalidator.invalidate(savedUser.getUserId());
+                    return (UserDetails) new CustomUserDetails(savedUser);
+                })
+                .orElse(userDetails);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,28 @@
+package com.mercadoganadero.security;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Genera tokens opacos de alta entropía (256 bits) codificados en Base64 URL-safe
+ * Emitir uno no requiere ninguna operación criptográfica de firma:
+ * su validez la determina el registro en BD, no una firma.
+ */
+public final class OpaqueTokenGenerator {
+
+    private static final int TOKEN_BYTES = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private OpaqueTokenGenerator() {
+    }
+
+    /**
+     * Nuevo token aleatorio de 43 caracteres
+     */
+    public static String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        return ENCODER.encodeToString(bytes);
+    }
+}
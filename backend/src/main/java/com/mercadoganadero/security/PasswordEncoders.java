@@ -0,0 +1,98 @@
+package com.mercadoganadero.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.scrypt.SCryptPasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Construye el PasswordEncoder de la aplicación
+ * - Hashes con prefijo de algoritmo: {bcrypt}, {argon2id}, {scrypt}
+ * - Los hashes antiguos sin prefijo ($2a$...) se verifican como BCrypt
+ * - upgradeEncoding es true si el hash usa otro algoritmo u otros parámetros (BCrypt: solo
+ *   si el costo almacenado es menor; nunca se baja, así nodos con calibraciones distintas
+ *   no re-hashean en ciclo los hashes del otro),
+ *   así DaoAuthenticationProvider lo re-hashea en el siguiente login exitoso
+ */
+@Slf4j
+public final class PasswordEncoders {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2ID = "argon2id";
+    public static final String SCRYPT = "scrypt";
+
+    private static final int CALIBRATION_ROUNDS = 3;
+
+    private PasswordEncoders() {
+    }
+
+    public static PasswordEncoder create(PasswordHashingProperties properties) {
+        PasswordHashingProperties.BCrypt bcrypt = properties.getBcrypt();
+        int cost = bcrypt.getCost() > 0
+                ? bcrypt.getCost()
+                : calibrateBCryptCost(bcrypt.getTargetMs(), bcrypt.getMinCost(), bcrypt.getMaxCost());
+        PasswordEncoder bcryptEncoder = new BCryptPasswordEncoder(cost);
+
+        PasswordHashingProperties.Argon2 argon2 = properties.getArgon2();
+        PasswordHashingProperties.Scrypt scrypt = properties.getScrypt();
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, bcryptEncoder);
+        encoders.put(ARGON2ID, new Argon2PasswordEncoder(argon2.getSaltLength(), argon2.getHashLength(),
+                argon2.getParallelism(), argon2.getMemoryKb(), argon2.getIterations()));
+        encoders.put(SCRYPT, new SCryptPasswordEncoder(scrypt.getCpuCost(), scrypt.getBlockSize(),
+                scrypt.getParallelism(), scrypt.getKeyLength(), scrypt.getSaltLength()));
+
+        String algorithm = properties.getAlgorithm().toLowerCase();
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalStateException("Algoritmo de hashing no soportado: " + properties.getAlgorithm());
+        }
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        encoder.setDefaultPasswordEncoderForMatches(bcryptEncoder); // Hashes sin prefijo
+        log.info("Hashing de contraseñas: {} (costo BCrypt {})", algorithm, cost);
+        return encoder;
+    }
+
+    /**
+     * Elige el costo BCrypt más alto cuyo tiempo no supere targetMs en este host
+     * Cada punto de costo duplica el trabajo: se mide minCost y se extrapola
+     */
+    static int calibrateBCryptCost(long targetMs, int minCost, int maxCost) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minCost);
+        probe.encode("calibracion"); // Calentamiento (JIT)
+
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibracion");
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        double baseMs = Math.max(bestNanos / 1_000_000.0, 0.001);
+        int extra = (int) Math.floor(Math.log(targetMs / baseMs) / Math.log(2));
+        int cost = Math.max(minCost, Math.min(maxCost, minCost + extra));
+
+        log.info("Calibración BCrypt: costo {} ≈ {} ms -> costo {} (objetivo {} ms)",
+                minCost, String.format("%.1f", baseMs), cost, targetMs);
+        return cost;
+    }
+
+    /**
+     * Algoritmo de un hash almacenado, para users.password_algorithm
+     */
+    public static String algorithmOf(String encodedPassword) {
+        if (encodedPassword != null && encodedPassword.startsWith("{")) {
+            int end = encodedPassword.indexOf('}');
+            if (end > 1) {
+                return encodedPassword.substring(1, end);
+            }
+        }
+        return BCRYPT;
+    }
+}
@@ -0,0 +1,61 @@
+package com.mercadoganadero.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuración del hashing de contraseñas (app.security.password-hashing)
+ * El algoritmo elegido se usa para los hashes nuevos; los hashes existentes de cualquier
+ * algoritmo siguen verificándose y se re-hashean en el siguiente login exitoso.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.security.password-hashing")
+@Data
+public class PasswordHashingProperties {
+
+    /** bcrypt, argon2id o scrypt */
+    private String algorithm = PasswordEncoders.BCRYPT;
+
+    // ========== POOL DEDICADO ==========
+    /** Hilos de hashing; 0 = núcleos de CPU */
+    private int poolSize = 0;
+    private int queueCapacity = 64;
+    private long timeoutMs = 5000;
+    private long retryAfterSeconds = 2;
+
+    private BCrypt bcrypt = new BCrypt();
+    private Argon2 argon2 = new Argon2();
+    private Scrypt scrypt = new Scrypt();
+
+    @Data
+    public static class BCrypt {
+        /** Costo fijo (4-31); 0 = calibrar al arrancar según targetMs */
+        private int cost = 0;
+        /** Latencia objetivo de un hash en este host */
+        private long targetMs = 250;
+        private int minCost = 10;
+        private int maxCost = 14;
+    }
+
+    @Data
+    public static class Argon2 {
+        private int saltLength = 16;
+        private int hashLength = 32;
+        private int parallelism = 1;
+        /** Memoria por hash en KiB (19 MiB, recomendación OWASP) */
+        private int memoryKb = 19456;
+        private int iterations = 2;
+    }
+
+    @Data
+    public static class Scrypt {
+        /** N, potencia de 2 */
+        private int cpuCost = 65536;
+        /** r; memoria por hash = 128 * N * r bytes */
+        private int blockSize = 8;
+        private int parallelism = 1;
+        private int keyLength = 32;
+        private int saltLength = 16;
+    }
+}
@@ -0,0 +1,40 @@
+package com.mercadoganadero.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Utilidades para obtener el digest SHA-256 de un token
+ * Se usa como clave compacta en lugar del token completo
+ */
+public final class TokenHasher {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible en la JVM", e);
+        }
+    });
+
+    private TokenHasher() {
+    }
+
+    /**
+     * Calcula el digest SHA-256 (32 bytes) del token
+     */
+    public static byte[] sha256(String token) {
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        return digest.digest(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Digest SHA-256 codificado en Base64 URL-safe (43 caracteres), útil como clave de mapas
+     */
+    public static String sha256Key(String token) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sha256(token));
+    }
+}
@@ -0,0 +1,94 @@
+package com.mercadoganadero.security.jwt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lista de access tokens revocados (por jti) antes de su expiración
+ * - Prefiltro Bloom en dos generaciones: un token no revocado (el caso normal) se descarta
+ *   con unos pocos accesos a memoria, sin tocar el mapa exacto
+ * - Mapa exacto jti -> exp, consultado solo si el Bloom da positivo
+ * - Las generaciones rotan cada app.jwt.expiration-ms: un jti vive en el Bloom al menos
+ *   lo que dura un access token; el mapa exacto se purga al expirar cada token
+ * La propagación entre nodos la hace TokenRevocationService.
+ * Métrica: jwt.denylist.bloom_hits{result=denied|false_positive}
+ */
+@Component
+@Slf4j
+public class AccessTokenDenylist {
+
+    private final Map<String, Long> expiresAtByJti = new ConcurrentHashMap<>();
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+    private final Counter deniedHits;
+    private final Counter falsePositives;
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+
+    public AccessTokenDenylist(
+            @Value("${app.jwt.denylist.expected-insertions:100000}") int expectedInsertions,
+            @Value("${app.jwt.denylist.false-positive-rate:0.001}") double falsePositiveRate,
+            MeterRegistry meterRegistry) {
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.current = new BloomFilter(expectedInsertions, falsePositiveRate);
+        this.previous = new BloomFilter(expectedInsertions, falsePositiveRate);
+        this.deniedHits = Counter.builder("jwt.denylist.bloom_hits")
+                .description("Positivos del prefiltro Bloom")
+                .tag("result", "denied")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("jwt.denylist.bloom_hits")
+                .description("Positivos del prefiltro Bloom")
+                .tag("result", "false_positive")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Revoca un access token hasta su expiración (solo en este nodo)
+     * @param expiresAtSeconds claim exp, en segundos epoch
+     */
+    public void deny(String jti, long expiresAtSeconds) {
+        if (jti == null || expiresAtSeconds <= System.currentTimeMillis() / 1000) {
+            return; // Sin jti o ya expirado: nada que revocar
+        }
+        expiresAtByJti.merge(jti, expiresAtSeconds, Math::max);
+        current.put(jti);
+    }
+
+    public boolean isDenied(String jti) {
+        if (jti == null || (!current.mightContain(jti) && !previous.mightContain(jti))) {
+            return false;
+        }
+        Long expiresAt = expiresAtByJti.get(jti);
+        if (expiresAt != null && expiresAt > System.currentTimeMillis() / 1000) {
+            deniedHits.increment();
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Tarea programada: rota las generaciones del Bloom y reinserta los jti aún vigentes
+     */
+    @Scheduled(fixedRateString = "${app.jwt.expiration-ms}", initialDelayString = "${app.jwt.expiration-ms}")
+    public void rotate() {
+        long nowSeconds = System.currentTimeMillis() / 1000;
+        expiresAtByJti.values().removeIf(expiresAt -> expiresAt <= nowSeconds);
+
+        BloomFilter next = new BloomFilter(expectedInsertions, falsePositiveRate);
+        previous = current;
+        current = next;
+        // Un jti revocado cerca del inicio de la generación anterior puede seguir vigente
+        expiresAtByJti.keySet().forEach(next::put);
+        log.debug("Denylist rotada: {} jti vigentes", expiresAtByJti.size());
+    }
+}
@@ -0,0 +1,35 @@
+package com.mercadoganadero.security.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+
+/**
+ * Algoritmos de firma asimétrica soportados para los JWT
+ * - RS256: RSA-2048, el más costoso de firmar
+ * - ES256: ECDSA P-256, firma mucho más barata y tokens más cortos
+ * - EdDSA: Ed25519, la firma más barata de los tres
+ */
+public enum JwtAlgorithm {
+    RS256("RSA", Jwts.SIG.RS256),
+    ES256("EC", Jwts.SIG.ES256),
+    EdDSA("Ed25519", Jwts.SIG.EdDSA);
+
+    private final String keyFactoryAlgorithm;
+    private final SignatureAlgorithm signatureAlgorithm;
+
+    JwtAlgorithm(String keyFactoryAlgorithm, SignatureAlgorithm signatureAlgorithm) {
+        this.keyFactoryAlgorithm = keyFactoryAlgorithm;
+        this.signatureAlgorithm = signatureAlgorithm;
+    }
+
+    /**
+     * Nombre del algoritmo para java.security.KeyFactory
+     */
+    public String getKeyFactoryAlgorithm() {
+        return keyFactoryAlgorithm;
+    }
+
+    public SignatureAlgorithm getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+}
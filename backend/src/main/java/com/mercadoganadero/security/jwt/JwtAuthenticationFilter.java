@@ -1,13 +1,18 @@
 package com.mercadoganadero.security.jwt;
 
+import com.mercadoganadero.security.CustomUserDetails;
 import com.mercadoganadero.security.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -16,6 +21,9 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Filtro JWT que intercepta cada petición HTTP
@@ -26,8 +34,17 @@ import java.io.IOException;
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtTokenProvider tokenProvider; // Clase utilitaria para JWT
+    // Atributo de la petición con los claims del access token autenticado (ej: para revocarlo en logout)
+    public static final String CLAIMS_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".claims";
+
+    private final JwtClaimsCache claimsCache; // Claims verificados (una verificación de firma por token)
     private final CustomUserDetailsService userDetailsService; // Servicio para cargar el usuario
+    private final UserTokenRevocations tokenRevocations; // Revocaciones por usuario (desactivación, cambio de roles)
+    private final AccessTokenDenylist denylist; // Revocaciones por token (jti), en memoria
+
+    // true: el principal se arma desde los claims del token, sin consultar la BD
+    @Value("${app.jwt.stateless-principal:false}")
+    private boolean statelessPrincipal;
 
     @Override
     protected void doFilterInternal(
@@ -39,13 +56,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // 1. Extraer el JWT del header Authorization
             String jwt = getJwtFromRequest(request);
 
-            // 2. Validar el token y extraer información del usuario
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
+            // 2. Validar el token y extraer información del usuario (firma verificada una sola vez)
+            Claims claims = StringUtils.hasText(jwt) ? claimsCache.getVerifiedClaims(jwt) : null;
+            if (claims != null && !denylist.isDenied(claims.getId()) && !tokenRevocations.isRevoked(claims)) {
                 // Obtener la identidad (username/email) del token
-                String username = tokenProvider.getUsernameFromJWT(jwt);
+                String username = claims.getSubject();
 
-                // 3. Cargar los detalles completos del usuario (incluidos roles)
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                // 3. Obtener los detalles del usuario (incluidos roles):
+                //    desde los claims en modo stateless, o desde la BD en modo clásico
+                UserDetails userDetails = statelessPrincipal
+                        ? buildPrincipalFromClaims(claims)
+                        : userDetailsService.loadUserByUsername(username);
 
                 // 4. Crear el objeto de autenticación
                 UsernamePasswordAuthenticationToken authentication =
@@ -61,6 +82,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
                 // 5. Establecer la autenticación en el contexto de seguridad
                 SecurityContextHolder.getContext().setAuthentication(authentication);
+                request.setAttribute(CLAIMS_ATTRIBUTE, claims);
 
                 log.debug("Usuario autenticado: {} con roles: {}",
                         username, userDetails.getAuthorities());
@@ -73,6 +95,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Construye el principal con userId, email y roles del token verificado
+     */
+    private UserDetails buildPrincipalFromClaims(Claims claims) {
+        List<?> roles = claims.get("roles", List.class);
+        List<GrantedAuthority> authorities = new ArrayList<>(roles != null ? roles.size() : 0);
+        if (roles != null) {
+            for (Object role : roles) {
+                authorities.add(new SimpleGrantedAuthority(String.valueOf(role)));
+            }
+        }
+        return new CustomUserDetails(
+                claims.get("userId", Integer.class),
+                claims.getSubject(),
+                Collections.unmodifiableList(authorities)
+        );
+    }
+
     /**
      * Extrae el JWT del header Authorization
      * Formato esperado: "Authorization: Bearer <token>"
@@ -0,0 +1,138 @@
+package com.mercadoganadero.security.jwt;
+
+import com.mercadoganadero.security.TokenHasher;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caché acotada de claims ya verificados
+ * - Clave: SHA-256 del token (nunca se guarda el JWT en claro)
+ * - Cada entrada expira junto con el token (claim exp)
+ * - Así la firma RS256 se verifica una sola vez por token y no en cada petición
+ * Métricas en /actuator/metrics: cache.gets, cache.evictions, cache.size (tag cache=jwtClaims)
+ */
+@Component
+@Slf4j
+public class JwtClaimsCache {
+
+    private static final String CACHE_NAME = "jwtClaims";
+
+    private final JwtTokenProvider tokenProvider;
+    private final int maxSize;
+    private final Map<String, CachedClaims> entries = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public JwtClaimsCache(
+            JwtTokenProvider tokenProvider,
+            MeterRegistry meterRegistry,
+            @Value("${app.jwt.claims-cache.max-size:10000}") int maxSize) {
+        this.tokenProvider = tokenProvider;
+        this.maxSize = maxSize;
+
+        this.hits = Counter.builder("cache.gets")
+                .tag("cache", CACHE_NAME).tag("result", "hit")
+                .description("Tokens resueltos desde la caché de claims")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cache.gets")
+                .tag("cache", CACHE_NAME).tag("result", "miss")
+                .description("Tokens que requirieron verificar la firma")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions")
+                .tag("cache", CACHE_NAME)
+                .description("Entradas retiradas por expiración o por capacidad")
+                .register(meterRegistry);
+        Gauge.builder("cache.size", entries, Map::size)
+                .tag("cache", CACHE_NAME)
+                .description("Entradas actualmente en la caché de claims")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Retorna los claims verificados del token
+     * Solo verifica la firma si el token no está en caché
+     * @return Claims verificados, o null si el token no es válido
+     */
+    public Claims getVerifiedClaims(String token) {
+        String key = TokenHasher.sha256Key(token);
+        long now = System.currentTimeMillis();
+
+        CachedClaims cached = entries.get(key);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > now) {
+                hits.increment();
+                return cached.claims();
+            }
+            // El token expiró: se descarta y se deja que el proveedor lo rechace
+            if (entries.remove(key, cached)) {
+                evictions.increment();
+            }
+        }
+
+        misses.increment();
+        Claims claims = tokenProvider.getVerifiedClaims(token);
+        if (claims != null && claims.getExpiration() != null) {
+            ensureCapacity(now);
+            entries.put(key, new CachedClaims(claims, claims.getExpiration().getTime()));
+        }
+        return claims;
+    }
+
+    /**
+     * Tarea programada: retira las entradas cuyo token ya expiró
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.claims-cache.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        int removed = purgeExpired(System.currentTimeMillis());
+        if (removed > 0) {
+            log.debug("Caché de claims: {} entradas expiradas retiradas", removed);
+        }
+    }
+
+    private int purgeExpired(long now) {
+        int removed = 0;
+        Iterator<CachedClaims> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().expiresAtMillis() <= now) {
+                it.remove();
+                removed++;
+            }
+        }
+        evictions.increment(removed);
+        return removed;
+    }
+
+    /**
+     * Mantiene la caché por debajo de maxSize
+     * Primero retira expirados; si sigue llena libera un 10% para no recorrerla en cada fallo
+     */
+    private void ensureCapacity(long now) {
+        if (entries.size() < maxSize) {
+            return;
+        }
+        purgeExpired(now);
+
+        int target = maxSize - Math.max(1, maxSize / 10);
+        Iterator<CachedClaims> it = entries.values().iterator();
+        while (entries.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private record CachedClaims(Claims claims, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,152 @@
+package com.mercadoganadero.security.jwt;
+
+import com.mercadoganadero.enums.UserRole;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Firma y verificación de JWT con configuración inmutable
+ * - El JwtParser se construye una sola vez (es thread-safe)
+ * - Las listas de authorities por combinación de roles se precalculan
+ * - Firma con la clave activa (RS256, ES256 o EdDSA) y publica su kid en el header;
+ *   la verificación elige la clave pública por kid, sin probar una por una
+ * No depende de Spring, para poder medirlo aislado (módulo backend/benchmarks)
+ */
+public final class JwtCodec {
+
+    public static final String CLAIM_USER_ID = "userId";
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_TYPE = "type";
+
+    private static final UserRole[] ROLES = UserRole.values();
+
+    // Índice = máscara de bits por ordinal del rol
+    private static final List<List<String>> AUTHORITIES_BY_MASK = buildAuthoritiesByMask();
+
+    private final JwtSigningKey signingKey;
+    private final String issuer;
+    private final long accessExpirationMs;
+    private final JwtParser parser;
+
+    /**
+     * @param signingKey Clave activa (debe tener clave privada)
+     * @param verificationKeys Todas las claves aceptadas para verificar, incluida la activa
+     * @param defaultKid kid usado para tokens sin header kid (emitidos antes de la rotación)
+     */
+    public JwtCodec(JwtSigningKey signingKey, Collection<JwtSigningKey> verificationKeys, String defaultKid,
+                    String issuer, long accessExpirationMs) {
+        if (!signingKey.canSign()) {
+            throw new IllegalArgumentException("La clave activa '" + signingKey.kid() + "' no tiene clave privada");
+        }
+        this.signingKey = signingKey;
+        this.issuer = issuer;
+        this.accessExpirationMs = accessExpirationMs;
+
+        Map<String, Key> publicKeys = new HashMap<>();
+        for (JwtSigningKey key : verificationKeys) {
+            publicKeys.put(key.kid(), key.publicKey());
+        }
+        publicKeys.put(signingKey.kid(), signingKey.publicKey());
+        Map<String, Key> keysByKid = Map.copyOf(publicKeys);
+        String fallbackKid = defaultKid != null ? defaultKid : signingKey.kid();
+
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        String kid = header.getKeyId() != null ? header.getKeyId() : fallbackKid;
+                        Key key = keysByKid.get(kid);
+                        if (key == null) {
+                            throw new UnsupportedJwtException("kid desconocido: " + kid);
+                        }
+                        return key; // Verifica con la clave pública del kid
+                    }
+                })
+                .requireIssuer(issuer) // Valida el emisor
+                .build();
+    }
+
+    /**
+     * Firma un Access Token (corto, con roles)
+     */
+    public String signAccessToken(String username, Integer userId, Collection<UserRole> roles) {
+        long now = System.currentTimeMillis();
+
+        return Jwts.builder()
+                .subject(username)
+                .claim(CLAIM_USER_ID, userId)
+                .claim(CLAIM_ROLES, authoritiesOf(roles))
+                .claim(CLAIM_TYPE, "access")
+                .issuer(issuer)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + accessExpirationMs))
+                .id(newTokenId()) // JTI para rastreo
+                .header().keyId(signingKey.kid()).and()
+                .signWith(signingKey.privateKey(), signingKey.algorithm().getSignatureAlgorithm())
+                .compact();
+    }
+
+    /**
+     * kid de la clave con la que se firman los tokens nuevos
+     */
+    public String getActiveKid() {
+        return signingKey.kid();
+    }
+
+    /**
+     * Verifica firma, expiración y emisor con el parser precompilado
+     * Lanza las excepciones de jjwt si el token no es válido
+     */
+    public Jws<Claims> parse(String token) {
+        return parser.parseSignedClaims(token);
+    }
+
+    /**
+     * Lista inmutable de authorities para el conjunto de roles (sin streams ni copias)
+     */
+    static List<String> authoritiesOf(Collection<UserRole> roles) {
+        int mask = 0;
+        for (UserRole role : roles) {
+            mask |= 1 << role.ordinal();
+        }
+        return AUTHORITIES_BY_MASK.get(mask);
+    }
+
+    /**
+     * JTI aleatorio; no es un secreto (el token va firmado), por eso no necesita SecureRandom
+     */
+    private static String newTokenId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+
+    private static List<List<String>> buildAuthoritiesByMask() {
+        int combinations = 1 << ROLES.length;
+        List<List<String>> lists = new ArrayList<>(combinations);
+        for (int mask = 0; mask < combinations; mask++) {
+            List<String> authorities = new ArrayList<>(Integer.bitCount(mask));
+            for (UserRole role : ROLES) {
+                if ((mask & (1 << role.ordinal())) != 0) {
+                    authorities.add(role.getAuthority());
+                }
+            }
+            lists.add(List.copyOf(authorities));
+        }
+        return List.copyOf(lists);
+    }
+}
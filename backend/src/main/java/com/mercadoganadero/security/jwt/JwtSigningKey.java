@@ -0,0 +1,16 @@
+package com.mercadoganadero.security.jwt;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+
+/**
+ * Par de claves identificado por su kid
+ * La clave privada es opcional: las claves retiradas solo se conservan para verificar
+ * tokens emitidos antes de la rotación.
+ */
+public record JwtSigningKey(String kid, JwtAlgorithm algorithm, PrivateKey privateKey, PublicKey publicKey) {
+
+    public boolean canSign() {
+        return privateKey != null;
+    }
+}
@@ -0,0 +1,39 @@
+package com.mercadoganadero.security.jwt;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuración de claves de firma JWT (app.jwt.signing)
+ * Permite tener varias claves a la vez durante una rotación:
+ * la activa firma, todas las demás solo verifican.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.jwt.signing")
+@Data
+public class JwtSigningProperties {
+
+    /** kid de la clave con la que se firman los tokens nuevos */
+    private String activeKid;
+
+    /** kid con el que se verifican los tokens sin header kid (emitidos antes de la rotación) */
+    private String defaultKid;
+
+    /** Claves conocidas: la activa y las que siguen vigentes para verificación */
+    private List<Key> keys = new ArrayList<>();
+
+    @Data
+    public static class Key {
+        private String kid;
+        private JwtAlgorithm algorithm = JwtAlgorithm.RS256;
+        /** PEM PKCS#8; opcional en claves que solo verifican */
+        private Resource privateKey;
+        /** PEM X.509 (SubjectPublicKeyInfo) */
+        private Resource publicKey;
+    }
+}
@@ -0,0 +1,123 @@
+package com.mercadoganadero.security.jwt;
+
+import com.mercadoganadero.service.PgNotificationListener;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Revocación inmediata de access tokens en todo el cluster
+ * - Por token (jti, ej: logout) -> AccessTokenDenylist
+ * - Por usuario (logout global, desactivación) -> UserTokenRevocations
+ * Cada revocación se guarda en access_token_revocations (para nodos que arrancan o se reconectan)
+ * y se difunde con pg_notify; cada nodo escucha el canal con PgNotificationListener.
+ * El filtro JWT solo consulta estructuras en memoria: ninguna petición hace una consulta extra.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    private static final String CHANNEL = "token_revocations";
+
+    private final AccessTokenDenylist denylist;
+    private final UserTokenRevocations userRevocations;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.jwt.expiration-ms}")
+    private long jwtExpirationInMs;
+
+    public TokenRevocationService(AccessTokenDenylist denylist, UserTokenRevocations userRevocations,
+                                  JdbcTemplate jdbcTemplate, PgNotificationListener notificationListener,
+                                  @Value("${app.jwt.denylist.listen:true}") boolean listen) {
+        this.denylist = denylist;
+        this.userRevocations = userRevocations;
+        this.jdbcTemplate = jdbcTemplate;
+        // Tras cada (re)conexión se recargan las revocaciones vigentes para cubrir los avisos perdidos
+        if (listen) {
+            notificationListener.subscribe(CHANNEL, this::apply, this::loadActiveRevocations);
+        }
+    }
+
+    /**
+     * Revoca un access token concreto hasta su expiración
+     */
+    public void revokeAccessToken(Claims claims) {
+        String jti = claims.getId();
+        if (jti == null || claims.getExpiration() == null) {
+            return;
+        }
+        long expiresAt = claims.getExpiration().getTime() / 1000;
+        denylist.deny(jti, expiresAt);
+
+        jdbcTemplate.update("INSERT INTO access_token_revocations (jti, expires_at) VALUES (?, ?)",
+                jti, Timestamp.from(Instant.ofEpochSecond(expiresAt)));
+        publish("J|" + jti + "|" + expiresAt);
+    }
+
+    /**
+     * Revoca todos los access tokens del usuario emitidos hasta ahora
+     */
+    public void revokeUserTokens(Integer userId) {
+        long notBefore = userRevocations.revokeIssuedBefore(userId);
+        long expiresAt = notBefore + jwtExpirationInMs + 1000;
+
+        jdbcTemplate.update("INSERT INTO access_token_revocations (user_id, not_before, expires_at) VALUES (?, ?, ?)",
+                userId, Timestamp.from(Instant.ofEpochMilli(notBefore)), Timestamp.from(Instant.ofEpochMilli(expiresAt)));
+        publish("U|" + userId + "|" + notBefore);
+    }
+
+    // ========== PROPAGACIÓN ENTRE NODOS ==========
+
+    /**
+     * Tarea programada: elimina revocaciones cuyos tokens ya expiraron
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.claims-cache.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        try {
+            jdbcTemplate.update("DELETE FROM access_token_revocations WHERE expires_at < now()");
+        } catch (RuntimeException ex) {
+            log.warn("No se pudieron purgar revocaciones expiradas: {}", ex.getMessage());
+        }
+    }
+
+    private void publish(String payload) {
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, CHANNEL, payload);
+    }
+
+    private void loadActiveRevocations() {
+        jdbcTemplate.query("SELECT jti, user_id, not_before, expires_at FROM access_token_revocations WHERE expires_at > now()",
+                rs -> {
+                    String jti = rs.getString("jti");
+                    if (jti != null) {
+                        denylist.deny(jti, rs.getTimestamp("expires_at").getTime() / 1000);
+                    } else {
+                        userRevocations.applyNotBefore(rs.getInt("user_id"), rs.getTimestamp("not_before").getTime());
+                    }
+                });
+    }
+
+    // Formato: J|<jti>|<exp en segundos> o U|<userId>|<notBefore en milisegundos>
+    private void apply(String payload) {
+        String[] parts = payload.split("\\|");
+        if (parts.length != 3) {
+            log.warn("Aviso de revocación con formato inválido: {}", payload);
+            return;
+        }
+        try {
+            long instant = Long.parseLong(parts[2]);
+            switch (parts[0]) {
+                case "J" -> denylist.deny(parts[1], instant);
+                case "U" -> userRevocations.applyNotBefore(Integer.valueOf(parts[1]), instant);
+                default -> log.warn("Tipo de revocación desconocido: {}", payload);
+            }
+        } catch (NumberFormatException ex) {
+            log.warn("Aviso de revocación con formato inválido: {}", payload);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.mercadoganadero.security.jwt;
+
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro en memoria de revocaciones por usuario ("versión" del usuario)
+ * Cuando una cuenta se desactiva o cambian sus roles, todo access token emitido
+ * antes de ese instante deja de aceptarse, sin consultar la BD en cada petición.
+ * Las entradas se descartan una vez que cualquier token afectado ya habría expirado.
+ * La propagación entre nodos la hace TokenRevocationService.
+ */
+@Component
+@Slf4j
+public class UserTokenRevocations {
+
+    @Value("${app.jwt.expiration-ms}")
+    private long jwtExpirationInMs;
+
+    // userId -> milisegundo epoch de la revocación: se rechazan los tokens con iat <= ese instante
+    private final Map<Integer, Long> notBeforeByUser = new ConcurrentHashMap<>();
+
+    /**
+     * Invalida los access tokens del usuario emitidos antes de este instante (solo en este nodo)
+     * Para revocar en todo el cluster usar TokenRevocationService.revokeUserTokens
+     * @return el instante de corte, en milisegundos epoch
+     */
+    public long revokeIssuedBefore(Integer userId) {
+        long nowMillis = System.currentTimeMillis();
+        applyNotBefore(userId, nowMillis);
+        log.info("Access tokens del usuario {} emitidos antes de ahora han sido revocados", userId);
+        return nowMillis;
+    }
+
+    /**
+     * Aplica un corte recibido de otro nodo o cargado al arrancar
+     */
+    public void applyNotBefore(Integer userId, long notBeforeMillis) {
+        notBeforeByUser.merge(userId, notBeforeMillis, Math::max);
+    }
+
+    /**
+     * Verifica si el token pertenece a un usuario revocado después de su emisión
+     * El claim iat se trunca al segundo: un token emitido en el mismo segundo que la revocación
+     * (antes o después) queda revocado; nunca sobrevive uno emitido antes del corte
+     */
+    public boolean isRevoked(Claims claims) {
+        if (notBeforeByUser.isEmpty()) {
+            return false;
+        }
+        Integer userId = claims.get("userId", Integer.class);
+        Long notBefore = userId != null ? notBeforeByUser.get(userId) : null;
+        if (notBefore == null) {
+            return false;
+        }
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt == null || issuedAt.getTime() <= notBefore;
+    }
+
+    /**
+     * Tarea programada: descarta revocaciones más antiguas que la vida de un access token
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.claims-cache.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long cutoff = System.currentTimeMillis() - jwtExpirationInMs;
+        notBeforeByUser.values().removeIf(notBefore -> notBefore < cutoff);
+    }
+}
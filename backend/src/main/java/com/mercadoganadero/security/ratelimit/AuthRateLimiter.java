@@ -0,0 +1,84 @@
+package com.mercadoganadero.security.ratelimit;
+
+import com.mercadoganadero.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Limitador de intentos para endpoints de autenticación (token bucket)
+ * - Por IP: AuthRateLimitFilter, antes de cualquier hashing o acceso a la BD
+ * - Por email: los controllers lo consultan antes de autenticar o registrar
+ * Métrica: auth.rate_limit.rejected{scope=ip|email}
+ */
+@Component
+@Slf4j
+public class AuthRateLimiter {
+
+    private final RateLimitProperties properties;
+    private final TokenBucketStore store;
+    private final Counter ipRejections;
+    private final Counter emailRejections;
+
+    public AuthRateLimiter(RateLimitProperties properties, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.store = properties.getMode() == RateLimitProperties.Mode.POSTGRES
+                ? new PostgresTokenBucketStore(jdbcTemplate)
+                : new InMemoryTokenBucketStore(properties.getStripes(), properties.getMaxKeys());
+        this.ipRejections = Counter.builder("auth.rate_limit.rejected")
+                .description("Intentos rechazados por límite de frecuencia")
+                .tag("scope", "ip")
+                .register(meterRegistry);
+        this.emailRejections = Counter.builder("auth.rate_limit.rejected")
+                .description("Intentos rechazados por límite de frecuencia")
+                .tag("scope", "email")
+                .register(meterRegistry);
+        log.info("Límite de intentos de autenticación: {} (habilitado: {})", properties.getMode(), properties.isEnabled());
+    }
+
+    /**
+     * @return 0 si la IP puede continuar; si no, segundos para Retry-After
+     */
+    public long tryAcquireIp(String clientIp) {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        RateLimitProperties.Bucket bucket = properties.getIp();
+        long retryAfter = store.tryConsume("ip:" + clientIp, bucket.getCapacity(), bucket.refillPerSecond());
+        if (retryAfter > 0) {
+            ipRejections.increment();
+        }
+        return retryAfter;
+    }
+
+    /**
+     * Verifica el límite por cuenta
+     * @throws RateLimitExceededException si el email superó su límite
+     */
+    public void checkEmail(String email) {
+        if (!properties.isEnabled() || email == null || email.isBlank()) {
+            return;
+        }
+        RateLimitProperties.Bucket bucket = properties.getEmail();
+        String key = "email:" + email.trim().toLowerCase(Locale.ROOT);
+        long retryAfter = store.tryConsume(key, bucket.getCapacity(), bucket.refillPerSecond());
+        if (retryAfter > 0) {
+            emailRejections.increment();
+            log.warn("Límite de intentos superado para la cuenta {}", email);
+            throw new RateLimitExceededException(
+                    "Demasiados intentos para esta cuenta. Por favor, intente más tarde.", retryAfter);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        if (properties.isEnabled()) {
+            store.evictIdle(properties.getIdleTimeoutMs());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.mercadoganadero.security.ratelimit;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Token buckets en memoria con locks por stripe
+ * - Cada stripe es un LinkedHashMap en orden de acceso: el menos usado queda primero,
+ *   así la expulsión por inactividad y por tamaño máximo no recorren todo el mapa
+ * - Cada bucket ocupa dos campos primitivos (tokens + último acceso)
+ */
+class InMemoryTokenBucketStore implements TokenBucketStore {
+
+    private final Stripe[] stripes;
+    private final int mask;
+
+    InMemoryTokenBucketStore(int stripeCount, int maxKeys) {
+        int count = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1); // Potencia de 2
+        this.stripes = new Stripe[count];
+        this.mask = count - 1;
+        int maxPerStripe = Math.max(1, maxKeys / count);
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(maxPerStripe);
+        }
+    }
+
+    @Override
+    public long tryConsume(String key, int capacity, double refillPerSecond) {
+        long now = System.nanoTime();
+        Stripe stripe = stripeFor(key);
+
+        synchronized (stripe) {
+            Bucket bucket = stripe.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+                stripe.put(key, bucket);
+            } else {
+                double elapsedSeconds = (now - bucket.updatedAtNanos) / 1_000_000_000.0;
+                bucket.tokens = Math.min(capacity, bucket.tokens + elapsedSeconds * refillPerSecond);
+                bucket.updatedAtNanos = now;
+            }
+
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - bucket.tokens) / refillPerSecond);
+        }
+    }
+
+    @Override
+    public void evictIdle(long idleTimeoutMs) {
+        long threshold = System.nanoTime() - idleTimeoutMs * 1_000_000L;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Iterator<Bucket> iterator = stripe.values().iterator();
+                while (iterator.hasNext()) {
+                    if (iterator.next().updatedAtNanos - threshold >= 0) {
+                        break; // Orden de acceso: el resto se usó más recientemente
+                    }
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long updatedAtNanos;
+
+        private Bucket(double tokens, long updatedAtNanos) {
+            this.tokens = tokens;
+            this.updatedAtNanos = updatedAtNanos;
+        }
+    }
+
+    private static final class Stripe extends LinkedHashMap<String, Bucket> {
+        private final int maxEntries;
+
+        private Stripe(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+            return size() > maxEntries;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.mercadoganadero.security.ratelimit;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Token buckets compartidos entre nodos en la tabla auth_rate_limits (UNLOGGED, migración 004)
+ * Recarga y consumo en un solo upsert atómico; si no quedan tokens la fila no se modifica
+ * y la sentencia no devuelve filas.
+ */
+class PostgresTokenBucketStore implements TokenBucketStore {
+
+    private static final String CONSUME_SQL = """
+            INSERT INTO auth_rate_limits AS b (bucket_key, tokens, updated_at)
+            VALUES (?, ? - 1, clock_timestamp())
+            ON CONFLICT (bucket_key) DO UPDATE
+               SET tokens = LEAST(EXCLUDED.tokens + 1,
+                                  b.tokens + EXTRACT(EPOCH FROM clock_timestamp() - b.updated_at) * ?) - 1,
+                   updated_at = clock_timestamp()
+             WHERE LEAST(EXCLUDED.tokens + 1,
+                         b.tokens + EXTRACT(EPOCH FROM clock_timestamp() - b.updated_at) * ?) >= 1
+            RETURNING tokens
+            """;
+
+    private static final String EVICT_SQL =
+            "DELETE FROM auth_rate_limits WHERE updated_at < clock_timestamp() - make_interval(secs => ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    PostgresTokenBucketStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public long tryConsume(String key, int capacity, double refillPerSecond) {
+        List<Double> remaining = jdbcTemplate.queryForList(CONSUME_SQL, Double.class,
+                key, capacity, refillPerSecond, refillPerSecond);
+        // Rechazado: espera aproximada de un token completo (evita una segunda consulta)
+        return remaining.isEmpty() ? (long) Math.ceil(1 / refillPerSecond) : 0;
+    }
+
+    @Override
+    public void evictIdle(long idleTimeoutMs) {
+        jdbcTemplate.update(EVICT_SQL, idleTimeoutMs / 1000.0);
+    }
+}
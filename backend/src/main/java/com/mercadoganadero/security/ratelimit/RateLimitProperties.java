@@ -0,0 +1,58 @@
+package com.mercadoganadero.security.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Límites de intentos en endpoints de autenticación (app.security.rate-limit)
+ */
+@Component
+@ConfigurationProperties(prefix = "app.security.rate-limit")
+@Data
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /** memory: por nodo; postgres: compartido entre nodos (tabla auth_rate_limits) */
+    private Mode mode = Mode.MEMORY;
+
+    /** Bucket por IP de cliente (login, registro, refresh, recuperación de contraseña) */
+    private Bucket ip = new Bucket(20, 10);
+
+    /** Bucket por email (login, registro, recuperación de contraseña) */
+    private Bucket email = new Bucket(5, 2);
+
+    // ========== MODO MEMORIA ==========
+    /** Número de stripes (potencia de 2), cada uno con su propio lock */
+    private int stripes = 64;
+    /** Máximo de claves en memoria; al superarlo se descarta la menos usada de su stripe */
+    private int maxKeys = 100_000;
+
+    /** Buckets sin uso durante este tiempo se eliminan (un bucket lleno equivale a uno ausente) */
+    private long idleTimeoutMs = 900_000;
+
+    public enum Mode {
+        MEMORY, POSTGRES
+    }
+
+    @Data
+    public static class Bucket {
+        /** Intentos permitidos en ráfaga */
+        private int capacity;
+        /** Intentos que se recuperan por minuto */
+        private double refillPerMinute;
+
+        public Bucket() {
+        }
+
+        public Bucket(int capacity, double refillPerMinute) {
+            this.capacity = capacity;
+            this.refillPerMinute = refillPerMinute;
+        }
+
+        public double refillPerSecond() {
+            return refillPerMinute / 60.0;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.mercadoganadero.security.ratelimit;
+
+/**
+ * Almacén de token buckets identificados por clave (ej: "ip:203.0.113.7", "email:ana@correo.com")
+ */
+public interface TokenBucketStore {
+
+    /**
+     * Consume un token del bucket, creándolo lleno si no existe
+     * @return 0 si se permitió; si no, segundos a esperar hasta el próximo token
+     */
+    long tryConsume(String key, int capacity, double refillPerSecond);
+
+    /**
+     * Elimina buckets sin uso desde hace más de idleTimeoutMs
+     */
+    void evictIdle(long idleTimeoutMs);
+}
@@ -0,0 +1,46 @@
+package com.mercadoganadero.service;
+
+import com.mercadoganadero.exception.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursores opacos de paginación keyset: los valores de la última fila, separados por ':'
+ * y codificados en Base64 URL-safe. El cliente solo los reenvía, no los interpreta.
+ */
+final class Cursors {
+
+    private Cursors() {
+    }
+
+    static String encode(Object... values) {
+        StringBuilder raw = new StringBuilder();
+        for (Object value : values) {
+            if (!raw.isEmpty()) {
+                raw.append(':');
+            }
+            raw.append(value);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws InvalidRequestException si el cursor no es Base64 válido o no tiene el número de partes esperado
+     */
+    static String[] decode(String cursor, int parts) {
+        try {
+            String[] values = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", -1);
+            if (values.length == parts) {
+                return values;
+            }
+        } catch (IllegalArgumentException ex) {
+            // Se informa abajo
+        }
+        throw invalid();
+    }
+
+    static InvalidRequestException invalid() {
+        return new InvalidRequestException("El cursor de paginación no es válido");
+    }
+}
@@ -0,0 +1,115 @@
+package com.mercadoganadero.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro diferido (write-behind) de users.last_login
+ * - El login solo anota el instante en memoria; varios logins del mismo usuario se combinan
+ * - Un flush periódico escribe todo en lotes con UPDATE ... FROM (VALUES ...), solo la columna last_login
+ * - Al apagar la aplicación se hace un último flush
+ * - Los usuarios escritos se desalojan de la caché de segundo nivel (UserCacheInvalidator)
+ * Métricas: users.last_login.pending, users.last_login.flushed
+ */
+@Component
+@Slf4j
+public class LastLoginRecorder {
+
+    private final Map<Integer, OffsetDateTime> pending = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final UserCacheInvalidator userCacheInvalidator;
+    private final Counter flushedRows;
+
+    @Value("${app.users.last-login.batch-size:500}")
+    private int batchSize;
+
+    public LastLoginRecorder(JdbcTemplate jdbcTemplate, UserCacheInvalidator userCacheInvalidator,
+                             MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userCacheInvalidator = userCacheInvalidator;
+        this.flushedRows = Counter.builder("users.last_login.flushed")
+                .description("Filas de users actualizadas por el flush de last_login")
+                .register(meterRegistry);
+        Gauge.builder("users.last_login.pending", pending, Map::size)
+                .description("Usuarios con last_login pendiente de escribir")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Anota el login de un usuario; si ya había uno pendiente se conserva el más reciente
+     */
+    public void record(Integer userId, OffsetDateTime loginAt) {
+        pending.merge(userId, loginAt, (previous, current) -> current.isAfter(previous) ? current : previous);
+    }
+
+    @Scheduled(fixedDelayString = "${app.users.last-login.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+        Iterator<Integer> userIds = pending.keySet().iterator();
+        while (userIds.hasNext()) {
+            Integer userId = userIds.next();
+            OffsetDateTime loginAt = pending.remove(userId); // Atómico: un login concurrente vuelve a quedar pendiente
+            if (loginAt != null) {
+                batch.add(new Object[]{userId, loginAt});
+            }
+            if (batch.size() == batchSize || (!userIds.hasNext() && !batch.isEmpty())) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Escribiendo {} last_login pendientes antes de apagar", pending.size());
+        flush();
+    }
+
+    private void write(List<Object[]> batch) {
+        StringBuilder sql = new StringBuilder("""
+                UPDATE users u
+                   SET last_login = v.last_login
+                  FROM (VALUES\s""");
+        Object[] args = new Object[batch.size() * 2];
+        for (int i = 0; i < batch.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?::integer, ?::timestamptz)");
+            args[i * 2] = batch.get(i)[0];
+            args[i * 2 + 1] = batch.get(i)[1];
+        }
+        sql.append("""
+                ) AS v(user_id, last_login)
+                 WHERE u.user_id = v.user_id
+                   AND (u.last_login IS NULL OR u.last_login < v.last_login)
+                """);
+
+        try {
+            int updated = jdbcTemplate.update(sql.toString(), args);
+            flushedRows.increment(updated);
+            log.debug("last_login escrito para {} usuarios", updated);
+            // El UPDATE no pasa por Hibernate: las copias en caché tendrían el last_login anterior
+            userCacheInvalidator.invalidate(batch.stream().map(row -> (Integer) row[0]).toList());
+        } catch (RuntimeException ex) {
+            // Se reintenta en el próximo flush, sin pisar logins más nuevos
+            batch.forEach(row -> record((Integer) row[0], (OffsetDateTime) row[1]));
+            log.error("Error al escribir last_login ({} usuarios), se reintentará: {}", batch.size(), ex.getMessage());
+        }
+    }
+}
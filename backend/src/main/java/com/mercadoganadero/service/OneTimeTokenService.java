@@ -0,0 +1,112 @@
+package com.mercadoganadero.service;
+
+import com.mercadoganadero.entity.OneTimeToken;
+import com.mercadoganadero.enums.OneTimeTokenPurpose;
+import com.mercadoganadero.exception.InvalidTokenException;
+import com.mercadoganadero.repository.OneTimeTokenRepository;
+import com.mercadoganadero.security.OpaqueTokenGenerator;
+import com.mercadoganadero.security.TokenHasher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+
+/**
+ * Tokens de un solo uso (reseteo de contraseña, verificación de email) en one_time_tokens
+ * - Se guardan hasheados (SHA-256); el valor en claro solo existe al emitirlo
+ * - Validarlo es una búsqueda por índice único que además lo borra (DELETE ... RETURNING)
+ * - Los expirados se purgan en lotes pequeños para no bloquear la tabla
+ * Métrica: one_time_tokens.purged
+ */
+@Service
+@Slf4j
+public class OneTimeTokenService {
+
+    private final OneTimeTokenRepository oneTimeTokenRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter purgedRows;
+
+    @Value("${app.users.one-time-tokens.password-reset-ttl:PT1H}")
+    private Duration passwordResetTtl;
+
+    @Value("${app.users.one-time-tokens.email-verification-ttl:P7D}")
+    private Duration emailVerificationTtl;
+
+    @Value("${app.users.one-time-tokens.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    public OneTimeTokenService(OneTimeTokenRepository oneTimeTokenRepository,
+                               JdbcTemplate jdbcTemplate,
+                               MeterRegistry meterRegistry) {
+        this.oneTimeTokenRepository = oneTimeTokenRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.purgedRows = Counter.builder("one_time_tokens.purged")
+                .description("Tokens de un solo uso expirados eliminados")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Emite un token nuevo e invalida los anteriores del mismo uso
+     * @return valor en claro, para enviarlo al usuario (no se puede recuperar después)
+     */
+    @Transactional
+    public String issue(Integer userId, OneTimeTokenPurpose purpose) {
+        oneTimeTokenRepository.deleteByUserIdAndPurpose(userId, purpose);
+
+        String token = OpaqueTokenGenerator.newToken();
+        oneTimeTokenRepository.save(OneTimeToken.builder()
+                .tokenHash(TokenHasher.sha256(token))
+                .userId(userId)
+                .purpose(purpose)
+                .expiresAt(OffsetDateTime.now().plus(ttlOf(purpose)))
+                .build());
+        return token;
+    }
+
+    /**
+     * Valida y consume un token; no puede volver a usarse
+     * @return id del usuario dueño del token
+     * @throws InvalidTokenException si no existe, es de otro uso o expiró
+     */
+    @Transactional
+    public Integer consume(String token, OneTimeTokenPurpose purpose) {
+        byte[] tokenHash = TokenHasher.sha256(token);
+        return oneTimeTokenRepository.consume(tokenHash, purpose.name(), OffsetDateTime.now())
+                .orElseThrow(() -> oneTimeTokenRepository.existsByTokenHashAndPurpose(tokenHash, purpose)
+                        ? new InvalidTokenException("El token ha expirado.")
+                        : new InvalidTokenException("El token es inválido."));
+    }
+
+    /**
+     * Borra los tokens expirados en lotes de purge-batch-size filas
+     */
+    @Scheduled(fixedDelayString = "${app.users.one-time-tokens.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        try {
+            int deleted;
+            do {
+                deleted = jdbcTemplate.update("""
+                        DELETE FROM one_time_tokens
+                         WHERE id IN (SELECT id FROM one_time_tokens WHERE expires_at < now() LIMIT ?)
+                        """, purgeBatchSize);
+                purgedRows.increment(deleted);
+            } while (deleted == purgeBatchSize);
+        } catch (RuntimeException ex) {
+            log.warn("No se pudieron purgar tokens de un solo uso expirados: {}", ex.getMessage());
+        }
+    }
+
+    private Duration ttlOf(OneTimeTokenPurpose purpose) {
+        return switch (purpose) {
+            case PASSWORD_RESET -> passwordResetTtl;
+            case EMAIL_VERIFICATION -> emailVerificationTtl;
+        };
+    }
+}
@@ -0,0 +1,136 @@
+package com.mercadoganadero.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Escucha de canales PostgreSQL (LISTEN/NOTIFY) compartida por todo el nodo
+ * - Una sola conexión dedicada (fuera del pool) con LISTEN en cada canal suscrito
+ * - Cada aviso se entrega al handler de su canal
+ * - Tras cada (re)conexión se llama a onConnect de cada suscripción: los avisos enviados
+ *   mientras estuvo desconectada se pierden y cada servicio decide cómo recuperarse
+ * Las suscripciones se registran al construir los servicios; la escucha arranca con la aplicación.
+ */
+@Component
+@Slf4j
+public class PgNotificationListener {
+
+    private static final long POLL_TIMEOUT_MS = 10_000;
+    private static final long RECONNECT_DELAY_MS = 5_000;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public PgNotificationListener(DataSourceProperties dataSourceProperties) {
+        this.dataSourceProperties = dataSourceProperties;
+    }
+
+    /**
+     * Registra un canal; debe llamarse antes de que arranque la aplicación
+     * @param onNotification recibe el payload de cada aviso del canal
+     * @param onConnect se ejecuta tras cada (re)conexión, ya con LISTEN activo
+     */
+    public void subscribe(String channel, Consumer<String> onNotification, Runnable onConnect) {
+        if (running) {
+            throw new IllegalStateException("La escucha ya arrancó, no se puede suscribir el canal " + channel);
+        }
+        if (subscriptions.putIfAbsent(channel, new Subscription(onNotification, onConnect)) != null) {
+            throw new IllegalStateException("El canal " + channel + " ya tiene una suscripción");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listenLoop, "pg-notification-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+
+                try (Statement statement = connection.createStatement()) {
+                    for (String channel : subscriptions.keySet()) {
+                        statement.execute("LISTEN " + channel);
+                    }
+                }
+                subscriptions.values().forEach(subscription -> subscription.onConnect().run());
+                log.info("Escuchando los canales {}", subscriptions.keySet());
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification);
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException ex) {
+                if (running) {
+                    log.warn("Conexión LISTEN perdida, reintentando en {} s: {}",
+                            RECONNECT_DELAY_MS / 1000, ex.getMessage());
+                    sleepQuietly(RECONNECT_DELAY_MS);
+                }
+            }
+        }
+    }
+
+    // Un handler que falla no corta la conexión ni afecta al resto de canales
+    private void dispatch(PGNotification notification) {
+        Subscription subscription = subscriptions.get(notification.getName());
+        if (subscription == null) {
+            return;
+        }
+        try {
+            subscription.onNotification().accept(notification.getParameter());
+        } catch (RuntimeException ex) {
+            log.warn("Error procesando aviso del canal {}: {}", notification.getName(), ex.getMessage());
+        }
+    }
+
+    private void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private record Subscription(Consumer<String> onNotification, Runnable onConnect) {
+    }
+}
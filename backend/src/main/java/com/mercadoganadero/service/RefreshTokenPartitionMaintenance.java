@@ -0,0 +1,293 @@
+package com.mercadoganadero.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Mantenimiento de las particiones semanales de refresh_tokens (rango por expires_at, ver migración 002)
+ * - Crea por adelantado las particiones que cubren el horizonte de expiración más premake-weeks
+ * - Retención: una partición cuyo rango ya venció por completo solo tiene tokens expirados,
+ *   se elimina con DROP TABLE (sin DELETE ni vacuum). No se usa DETACH ... CONCURRENTLY:
+ *   PostgreSQL lo rechaza si la tabla tiene partición DEFAULT; lock_timeout acota la espera
+ * - Partición DEFAULT (migración 009): recibe los INSERT fuera de las semanas creadas si este
+ *   mantenimiento se atrasa; sus filas se mueven a la partición semanal al crearla y las expiradas se borran
+ * - Un advisory lock de sesión actúa como lease: si otro nodo ya está trabajando, este no hace nada
+ * Se ejecuta al arrancar y luego según app.jwt.partitions.cron.
+ * Métricas: refresh_tokens.partitions.created, .dropped, .skipped y .maintenance (duración)
+ */
+@Service
+@Slf4j
+public class RefreshTokenPartitionMaintenance {
+
+    // Clave del advisory lock compartida por todos los nodos
+    private static final long MAINTENANCE_LOCK_KEY = 0x4D47_5254_5357_0001L; // "MGRTSW" + 1
+
+    private static final String TABLE = "refresh_tokens";
+    private static final String DEFAULT_PARTITION = TABLE + "_default";
+    private static final String PARTITION_PREFIX = TABLE + "_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final String LIST_PARTITIONS_SQL = """
+            SELECT c.relname
+              FROM pg_inherits i
+              JOIN pg_class c ON c.oid = i.inhrelid
+             WHERE i.inhparent = 'public.refresh_tokens'::regclass
+            """;
+
+    private final DataSource dataSource;
+    private final Counter createdPartitions;
+    private final Counter droppedPartitions;
+    private final Counter skippedRuns;
+    private final Timer duration;
+
+    @Value("${app.jwt.refresh-expiration-days:7}")
+    private int refreshExpirationDays;
+
+    @Value("${app.jwt.partitions.premake-weeks:4}")
+    private int premakeWeeks;
+
+    @Value("${app.jwt.partitions.lock-timeout:5s}")
+    private String lockTimeout;
+
+    public RefreshTokenPartitionMaintenance(DataSource dataSource, MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.createdPartitions = Counter.builder("refresh_tokens.partitions.created")
+                .description("Particiones semanales creadas por adelantado")
+                .register(meterRegistry);
+        this.droppedPartitions = Counter.builder("refresh_tokens.partitions.dropped")
+                .description("Particiones vencidas eliminadas")
+                .register(meterRegistry);
+        this.skippedRuns = Counter.builder("refresh_tokens.partitions.skipped")
+                .description("Ejecuciones omitidas porque otro nodo tenía el lease")
+                .register(meterRegistry);
+        this.duration = Timer.builder("refresh_tokens.partitions.maintenance")
+                .description("Tiempo total de cada ejecución del mantenimiento")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    /**
+     * Tarea programada: crea particiones futuras y elimina las vencidas (por defecto cada día a las 3 AM)
+     */
+    @Scheduled(cron = "${app.jwt.partitions.cron:0 0 3 * * ?}")
+    public void maintainPartitions() {
+        Timer.Sample sample = Timer.start();
+        try (Connection connection = dataSource.getConnection()) {
+            // Cada creación o eliminación va en su propia transacción: si una falla, las anteriores se conservan
+            connection.setAutoCommit(true);
+
+            if (!tryLock(connection)) {
+                skippedRuns.increment();
+                log.info("Mantenimiento de particiones omitido: otro nodo tiene el lease");
+                return;
+            }
+            try (Statement statement = connection.createStatement()) {
+                // No hacer cola detrás de consultas largas: mejor reintentar en la próxima ejecución
+                statement.execute("SET lock_timeout = '" + lockTimeout.replace("'", "") + "'");
+                if (!isPartitioned(statement)) {
+                    log.warn("refresh_tokens no está particionada (falta la migración 002); mantenimiento omitido");
+                    return;
+                }
+                maintain(statement);
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("RESET lock_timeout");
+                }
+                unlock(connection);
+            }
+        } catch (SQLException ex) {
+            log.error("Error en el mantenimiento de particiones de refresh tokens: {}", ex.getMessage(), ex);
+        } finally {
+            sample.stop(duration);
+        }
+    }
+
+    private void maintain(Statement statement) throws SQLException {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate currentWeek = weekStart(today);
+        LocalDate lastWeek = weekStart(today.plusDays(refreshExpirationDays)).plusWeeks(premakeWeeks);
+
+        Set<LocalDate> existing = listPartitions(statement);
+
+        boolean hasDefault = hasDefaultPartition(statement);
+        if (hasDefault) {
+            int expired = statement.executeUpdate("DELETE FROM public." + DEFAULT_PARTITION
+                    + " WHERE expires_at < '" + currentWeek + " 00:00:00+00'");
+            if (expired > 0) {
+                log.info("{} refresh tokens expirados eliminados de {}", expired, DEFAULT_PARTITION);
+            }
+        }
+
+        // Las semanas con filas en la DEFAULT (el mantenimiento estuvo atrasado) también se crean
+        LocalDate lastDefaultWeek = hasDefault ? lastWeekInDefault(statement) : null;
+        if (lastDefaultWeek != null && lastDefaultWeek.isAfter(lastWeek)) {
+            lastWeek = lastDefaultWeek;
+        }
+
+        for (LocalDate week = currentWeek; !week.isAfter(lastWeek); week = week.plusWeeks(1)) {
+            if (!existing.contains(week)) {
+                createPartition(statement, week, hasDefault);
+                createdPartitions.increment();
+                log.info("Partición {} creada", partitionName(week));
+            }
+        }
+
+        // El rango [week, week + 1) venció por completo cuando week + 1 <= semana actual
+        for (LocalDate week : existing) {
+            if (!week.plusWeeks(1).isAfter(currentWeek)) {
+                String name = partitionName(week);
+                inTransaction(statement.getConnection(),
+                        () -> statement.execute("DROP TABLE IF EXISTS public." + name));
+                droppedPartitions.increment();
+                log.info("Partición vencida {} eliminada", name);
+            }
+        }
+    }
+
+    /**
+     * Crea la partición de la semana; si la DEFAULT tiene filas de ese rango (CREATE ... PARTITION OF
+     * fallaría), en una transacción: tabla suelta, se mueven las filas y se adjunta
+     */
+    private void createPartition(Statement statement, LocalDate week, boolean hasDefault) throws SQLException {
+        String name = partitionName(week);
+        String from = "'" + week + " 00:00:00+00'";
+        String to = "'" + week.plusWeeks(1) + " 00:00:00+00'";
+
+        if (!hasDefault || !defaultHasRows(statement, from, to)) {
+            statement.execute("CREATE TABLE IF NOT EXISTS public." + name + " PARTITION OF public." + TABLE
+                    + " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+            return;
+        }
+
+        inTransaction(statement.getConnection(), () -> {
+            statement.execute("CREATE TABLE public." + name
+                    + " (LIKE public." + TABLE + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            int moved = statement.executeUpdate("WITH moved AS (DELETE FROM public." + DEFAULT_PARTITION
+                    + " WHERE expires_at >= " + from + " AND expires_at < " + to + " RETURNING *)"
+                    + " INSERT INTO public." + name + " SELECT * FROM moved");
+            statement.execute("ALTER TABLE public." + TABLE + " ATTACH PARTITION public." + name
+                    + " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+            log.warn("{} refresh tokens movidos de {} a {} (el mantenimiento estuvo atrasado)",
+                    moved, DEFAULT_PARTITION, name);
+        });
+    }
+
+    private static void inTransaction(Connection connection, SqlWork work) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            work.run();
+            connection.commit();
+        } catch (SQLException | RuntimeException ex) {
+            connection.rollback();
+            throw ex;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private boolean hasDefaultPartition(Statement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery(
+                "SELECT to_regclass('public." + DEFAULT_PARTITION + "') IS NOT NULL")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private boolean defaultHasRows(Statement statement, String from, String to) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT EXISTS (SELECT 1 FROM public." + DEFAULT_PARTITION
+                + " WHERE expires_at >= " + from + " AND expires_at < " + to + ")")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private LocalDate lastWeekInDefault(Statement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery(
+                "SELECT (max(expires_at) AT TIME ZONE 'UTC')::date FROM public." + DEFAULT_PARTITION)) {
+            return rs.next() && rs.getDate(1) != null ? weekStart(rs.getDate(1).toLocalDate()) : null;
+        }
+    }
+
+    /**
+     * Inicio de semana de las particiones actuales
+     * Se ignoran las que no siguen la convención de nombres (creadas a mano) y la DEFAULT
+     */
+    private Set<LocalDate> listPartitions(Statement statement) throws SQLException {
+        Set<LocalDate> partitions = new HashSet<>();
+        try (ResultSet rs = statement.executeQuery(LIST_PARTITIONS_SQL)) {
+            while (rs.next()) {
+                String name = rs.getString(1);
+                if (!name.startsWith(PARTITION_PREFIX)) {
+                    continue;
+                }
+                try {
+                    LocalDate week = LocalDate.parse(name.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+                    partitions.add(week);
+                } catch (DateTimeParseException ex) {
+                    log.warn("Partición con nombre inesperado ignorada: {}", name);
+                }
+            }
+        }
+        return partitions;
+    }
+
+    private boolean isPartitioned(Statement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery(
+                "SELECT relkind = 'p' FROM pg_class WHERE oid = 'public.refresh_tokens'::regclass")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    private static String partitionName(LocalDate weekStart) {
+        return PARTITION_PREFIX + weekStart.format(PARTITION_SUFFIX);
+    }
+
+    private boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, MAINTENANCE_LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            statement.setLong(1, MAINTENANCE_LOCK_KEY);
+            statement.execute();
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlWork {
+        void run() throws SQLException;
+    }
+}
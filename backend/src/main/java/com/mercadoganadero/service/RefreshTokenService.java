@@ -3,17 +3,17 @@ package com.mercadoganadero.service;
 import com.mercadoganadero.entity.RefreshToken;
 import com.mercadoganadero.exception.InvalidTokenException;
 import com.mercadoganadero.repository.RefreshTokenRepository;
+import com.mercadoganadero.security.ClientIpResolver;
+import com.mercadoganadero.security.OpaqueTokenGenerator;
+import com.mercadoganadero.security.TokenHasher;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
-import java.util.List;
-import java.util.UUID;
 
 /**
  * Servicio para gestionar Refresh Tokens
@@ -32,26 +32,32 @@ public class RefreshTokenService {
     @Value("${app.jwt.max-active-sessions:5}")
     private int maxActiveSessions;
 
+    // Reuso de un token reemplazado hace menos de esto: carrera normal (dos pestañas, reintento del cliente)
+    @Value("${app.jwt.refresh-reuse-grace-seconds:10}")
+    private long reuseGraceSeconds;
+
     /**
      * Crea un nuevo refresh token
      */
     @Transactional
     public RefreshToken createRefreshToken(Integer userId, HttpServletRequest request) {
-        // Verificar límite de sesiones activas
-        long activeSessions = refreshTokenRepository.countActiveTokensByUserId(userId, OffsetDateTime.now());
-        if (activeSessions >= maxActiveSessions) {
-            log.warn("Usuario {} alcanzó el límite de sesiones activas ({}). Revocando la más antigua.", userId, maxActiveSessions);
-            revokeOldestToken(userId);
+        // Límite de sesiones activas: deja lugar para la nueva revocando las más antiguas
+        OffsetDateTime now = OffsetDateTime.now();
+        refreshTokenRepository.retireExpiredTokens(userId, now);
+        int revoked = refreshTokenRepository.revokeSessionsBeyond(userId, Math.max(0, maxActiveSessions - 1), now);
+        if (revoked > 0) {
+            log.warn("Usuario {} alcanzó el límite de sesiones activas ({}). Revocadas las {} más antiguas.", userId, maxActiveSessions, revoked);
         }
 
-        String token = UUID.randomUUID().toString();
+        String token = OpaqueTokenGenerator.newToken(); // 256 bits, sin firma
         OffsetDateTime expiresAt = OffsetDateTime.now().plusDays(refreshExpirationDays);
 
         RefreshToken refreshToken = RefreshToken.builder()
-                .token(token)
+                .token(token) // Solo en memoria, para la respuesta
+                .tokenHash(TokenHasher.sha256(token))
                 .userId(userId)
                 .expiresAt(expiresAt)
-                .ipAddress(getClientIP(request))
+                .ipAddress(ClientIpResolver.resolve(request))
                 .userAgent(request.getHeader("User-Agent"))
                 .build();
 
@@ -63,85 +69,122 @@ public class RefreshTokenService {
      */
     @Transactional(readOnly = true)
     public RefreshToken validateRefreshToken(String token) {
-        RefreshToken refreshToken = refreshTokenRepository.findByToken(token)
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(TokenHasher.sha256(token))
                 .orElseThrow(() -> new InvalidTokenException("Refresh token inválido"));
 
-        if (refreshToken.isRevoked()) {
-            log.warn("Intento de usar refresh token revocado: {}", token);
-            throw new InvalidTokenException("Este token ha sido revocado");
-        }
-
+        // Antes que revocado: retireExpiredTokens también marca revoked_at en los tokens expirados
         if (refreshToken.isExpired()) {
-            log.warn("Refresh token expirado: {}", token);
+            log.warn("Refresh token expirado. User ID: {}", refreshToken.getUserId());
             throw new InvalidTokenException("El refresh token ha expirado");
         }
 
+        if (refreshToken.isRevoked()) {
+            log.warn("Intento de usar refresh token revocado. User ID: {}", refreshToken.getUserId());
+            throw new InvalidTokenException("Este token ha sido revocado");
+        }
+
         // Detectar reuso de token (posible robo)
-        if (refreshToken.getReplacedByToken() != null) {
-            log.error("ALERTA: Token reemplazado siendo reutilizado. Posible robo. User ID: {}", refreshToken.getUserId());
-            revokeAllUserTokens(refreshToken.getUserId());
-            throw new InvalidTokenException("Token de seguridad comprometido. Se han revocado todas las sesiones.");
+        if (refreshToken.getReplacedByTokenHash() != null) {
+            throw rejectReuse(refreshToken);
         }
 
         return refreshToken;
     }
 
     /**
-     * Revoca un token específico y lo marca como reemplazado
+     * Rota un refresh token de forma atómica (una sola sentencia SQL):
+     * valida, revoca, enlaza replaced_by_token_hash e inserta el sucesor.
+     * La rotación no cambia el número de sesiones activas, por eso no revisa el límite.
+     * @return El nuevo refresh token
+     * @throws InvalidTokenException si el token no existe, expiró, fue revocado o reutilizado
      */
-    @Transactional
-    public void revokeToken(String oldToken, String newToken) {
-        refreshTokenRepository.findByToken(oldToken).ifPresent(token -> {
-            token.setRevokedAt(OffsetDateTime.now());
-            token.setReplacedByToken(newToken);
-            refreshTokenRepository.save(token);
-        });
+    @Transactional(noRollbackFor = InvalidTokenException.class)
+    public RefreshToken rotateRefreshToken(String oldToken, HttpServletRequest request) {
+        OffsetDateTime now = OffsetDateTime.now();
+        String newToken = OpaqueTokenGenerator.newToken();
+        OffsetDateTime expiresAt = now.plusDays(refreshExpirationDays);
+        String ipAddress = ClientIpResolver.resolve(request);
+        String userAgent = request.getHeader("User-Agent");
+
+        byte[] oldTokenHash = TokenHasher.sha256(oldToken);
+        byte[] newTokenHash = TokenHasher.sha256(newToken);
+
+        Integer userId = refreshTokenRepository.rotateToken(oldTokenHash, newTokenHash, now, expiresAt, ipAddress, userAgent)
+                .orElseThrow(() -> rejectRotation(oldTokenHash));
+
+        return RefreshToken.builder()
+                .token(newToken)
+                .tokenHash(newTokenHash)
+                .userId(userId)
+                .expiresAt(expiresAt)
+                .createdAt(now)
+                .ipAddress(ipAddress)
+                .userAgent(userAgent)
+                .build();
     }
 
     /**
-     * Revoca todos los tokens de un usuario (logout global)
+     * Determina por qué falló la rotación (solo en el camino de error)
+     * La reutilización se revisa primero: un token ya reemplazado también está revocado
      */
-    @Transactional
-    public void revokeAllUserTokens(Integer userId) {
-        refreshTokenRepository.revokeAllUserTokens(userId, OffsetDateTime.now());
-        log.info("Todas las sesiones del usuario {} han sido revocadas", userId);
+    private InvalidTokenException rejectRotation(byte[] tokenHash) {
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(tokenHash).orElse(null);
+        if (refreshToken == null) {
+            return new InvalidTokenException("Refresh token inválido");
+        }
+
+        // Detectar reuso de token (posible robo)
+        if (refreshToken.getReplacedByTokenHash() != null) {
+            return rejectReuse(refreshToken);
+        }
+
+        if (refreshToken.isRevoked() && !refreshToken.isExpired()) {
+            log.warn("Intento de usar refresh token revocado. User ID: {}", refreshToken.getUserId());
+            return new InvalidTokenException("Este token ha sido revocado");
+        }
+
+        log.warn("Refresh token expirado. User ID: {}", refreshToken.getUserId());
+        return new InvalidTokenException("El refresh token ha expirado");
     }
 
     /**
-     * Revoca el token más antiguo de un usuario
+     * Reuso de un token ya reemplazado
+     * - Dentro de refresh-reuse-grace-seconds desde la rotación: dos refresh simultáneos del mismo token
+     *   (dos pestañas, reintento tras un timeout); el perdedor recibe 401 y las sesiones siguen vigentes
+     * - Después: posible robo, se revocan todas las sesiones del usuario
      */
-    @Transactional
-    public void revokeOldestToken(Integer userId) {
-        List<RefreshToken> activeTokens = refreshTokenRepository.findActiveTokensByUserId(userId);
-        if (!activeTokens.isEmpty()) {
-            RefreshToken oldest = activeTokens.stream()
-                    .min((t1, t2) -> t1.getCreatedAt().compareTo(t2.getCreatedAt()))
-                    .orElse(activeTokens.get(0));
-
-            oldest.setRevokedAt(OffsetDateTime.now());
-            refreshTokenRepository.save(oldest);
-            log.info("Token más antiguo revocado para usuario {}", userId);
+    private InvalidTokenException rejectReuse(RefreshToken refreshToken) {
+        OffsetDateTime replacedAt = refreshToken.getRevokedAt();
+        if (replacedAt != null && replacedAt.isAfter(OffsetDateTime.now().minusSeconds(reuseGraceSeconds))) {
+            log.warn("Refresh token reemplazado hace menos de {} s (refresh concurrente). User ID: {}",
+                    reuseGraceSeconds, refreshToken.getUserId());
+            return new InvalidTokenException("El refresh token ya fue renovado");
         }
+
+        log.error("ALERTA: Token reemplazado siendo reutilizado. Posible robo. User ID: {}", refreshToken.getUserId());
+        revokeAllUserTokens(refreshToken.getUserId());
+        return new InvalidTokenException("Token de seguridad comprometido. Se han revocado todas las sesiones.");
     }
 
     /**
-     * Tarea programada: Limpia tokens expirados cada día a las 3 AM
+     * Revoca un token específico y lo marca como reemplazado
      */
-    @Scheduled(cron = "0 0 3 * * ?")
     @Transactional
-    public void cleanupExpiredTokens() {
-        refreshTokenRepository.deleteExpiredTokens(OffsetDateTime.now());
-        log.info("Limpieza de refresh tokens expirados completada");
+    public void revokeToken(String oldToken, String newToken) {
+        OffsetDateTime now = OffsetDateTime.now();
+        refreshTokenRepository.findByTokenHashAndExpiresAtAfter(TokenHasher.sha256(oldToken), now).ifPresent(token -> {
+            token.setRevokedAt(now);
+            token.setReplacedByTokenHash(newToken != null ? TokenHasher.sha256(newToken) : null);
+            refreshTokenRepository.save(token);
+        });
     }
 
     /**
-     * Obtiene la IP real del cliente (considerando proxies)
+     * Revoca todos los tokens de un usuario (logout global)
      */
-    private String getClientIP(HttpServletRequest request) {
-        String xfHeader = request.getHeader("X-Forwarded-For");
-        if (xfHeader == null) {
-            return request.getRemoteAddr();
-        }
-        return xfHeader.split(",")[0].trim();
+    @Transactional
+    public void revokeAllUserTokens(Integer userId) {
+        refreshTokenRepository.revokeAllUserTokens(userId, OffsetDateTime.now());
+        log.info("Todas las sesiones del usuario {} han sido revocadas", userId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,168 @@
+package com.mercadoganadero.service;
+
+import com.mercadoganadero.entity.User;
+import com.mercadoganadero.entity.UserCacheRegions;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Invalidación de la caché de segundo nivel de User (entidad, roles y email -> id)
+ * - Las escrituras por Hibernate en este nodo ya mantienen la caché local (READ_WRITE)
+ * - Las escrituras fuera de Hibernate (JDBC, ej. LastLoginRecorder) y las de otros nodos no:
+ *   invalidate() desaloja localmente y avisa con pg_notify; dentro de una transacción el aviso
+ *   solo se entrega si hace commit
+ * - Cada nodo escucha el canal con PgNotificationListener; al (re)conectar vacía las
+ *   regiones de User porque pudo perder avisos
+ * Métricas: users.cache.requests{region,result}, users.cache.hit_ratio{region}
+ */
+@Component
+@Slf4j
+public class UserCacheInvalidator {
+
+    private static final String CHANNEL = "user_cache";
+    private static final String ROLES_ROLE = User.class.getName() + ".roles";
+    private static final int MAX_PAYLOAD_CHARS = 7000; // Límite de pg_notify: 8000 bytes
+
+    // Los avisos propios se ignoran: la caché local ya se desalojó al publicarlos
+    private final String nodeId = UUID.randomUUID().toString();
+    private final SessionFactory sessionFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserCacheInvalidator(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate,
+                                PgNotificationListener notificationListener, MeterRegistry meterRegistry,
+                                @Value("${app.users.cache.listen:true}") boolean listen) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.jdbcTemplate = jdbcTemplate;
+
+        Statistics statistics = sessionFactory.getStatistics();
+        for (String region : List.of(UserCacheRegions.ENTITY, UserCacheRegions.ROLES, UserCacheRegions.BY_EMAIL)) {
+            registerRegionMetrics(meterRegistry, statistics, region);
+        }
+        if (listen) {
+            notificationListener.subscribe(CHANNEL, this::apply, this::evictAll);
+        }
+    }
+
+    /**
+     * Desaloja un usuario de la caché local y avisa al resto de nodos
+     */
+    public void invalidate(Integer userId) {
+        invalidate(List.of(userId));
+    }
+
+    /**
+     * Desaloja varios usuarios; los avisos se parten para respetar el tamaño máximo de pg_notify
+     */
+    public void invalidate(Collection<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        userIds.forEach(this::evictLocal);
+
+        StringBuilder payload = new StringBuilder(nodeId).append('|');
+        int headerLength = payload.length();
+        for (Integer userId : userIds) {
+            if (payload.length() > MAX_PAYLOAD_CHARS) {
+                publish(payload);
+                payload.setLength(headerLength);
+            }
+            if (payload.length() > headerLength) {
+                payload.append(',');
+            }
+            payload.append(userId);
+        }
+        publish(payload);
+    }
+
+    private void evictLocal(Integer userId) {
+        Cache cache = sessionFactory.getCache();
+        cache.evictEntityData(User.class, userId);
+        cache.evictCollectionData(ROLES_ROLE, userId);
+        // La resolución email -> id se valida al leerla (UserRepositoryCustomImpl), no hace falta desalojarla
+    }
+
+    private void evictAll() {
+        Cache cache = sessionFactory.getCache();
+        cache.evictEntityData(User.class);
+        cache.evictCollectionData(ROLES_ROLE);
+        cache.evictNaturalIdData(User.class);
+    }
+
+    private void publish(CharSequence payload) {
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, CHANNEL, payload.toString());
+    }
+
+    // ========== PROPAGACIÓN ENTRE NODOS ==========
+
+    // Formato: <nodeId>|<userId>,<userId>,...
+    private void apply(String payload) {
+        int separator = payload.indexOf('|');
+        if (separator < 0) {
+            log.warn("Aviso de invalidación con formato inválido: {}", payload);
+            return;
+        }
+        if (separator == nodeId.length() && payload.startsWith(nodeId)) {
+            return;
+        }
+        try {
+            for (String userId : payload.substring(separator + 1).split(",")) {
+                evictLocal(Integer.valueOf(userId));
+            }
+        } catch (NumberFormatException ex) {
+            log.warn("Aviso de invalidación con formato inválido: {}", payload);
+        }
+    }
+
+    private static void registerRegionMetrics(MeterRegistry registry, Statistics statistics, String region) {
+        FunctionCounter.builder("users.cache.requests", statistics, regionCount(region, CacheRegionStatistics::getHitCount))
+                .tag("region", region).tag("result", "hit")
+                .description("Lecturas de la caché de segundo nivel de usuarios")
+                .register(registry);
+        FunctionCounter.builder("users.cache.requests", statistics, regionCount(region, CacheRegionStatistics::getMissCount))
+                .tag("region", region).tag("result", "miss")
+                .description("Lecturas de la caché de segundo nivel de usuarios")
+                .register(registry);
+        Gauge.builder("users.cache.hit_ratio", statistics, stats -> {
+                    CacheRegionStatistics regionStats = regionStatistics(stats, region);
+                    if (regionStats == null) {
+                        return Double.NaN;
+                    }
+                    long hits = regionStats.getHitCount();
+                    long total = hits + regionStats.getMissCount();
+                    return total == 0 ? Double.NaN : (double) hits / total;
+                })
+                .tag("region", region)
+                .description("Proporción de aciertos de la caché de segundo nivel de usuarios")
+                .register(registry);
+    }
+
+    private static ToDoubleFunction<Statistics> regionCount(String region, ToDoubleFunction<CacheRegionStatistics> count) {
+        return stats -> {
+            CacheRegionStatistics regionStats = regionStatistics(stats, region);
+            return regionStats == null ? 0 : count.applyAsDouble(regionStats);
+        };
+    }
+
+    private static CacheRegionStatistics regionStatistics(Statistics statistics, String region) {
+        try {
+            return statistics.getDomainDataRegionStatistics(region);
+        } catch (IllegalArgumentException ex) {
+            return null; // Caché deshabilitada o región inexistente
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.mercadoganadero.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mercadoganadero.dto.UserResponseDTO;
+import com.mercadoganadero.enums.UserExportFormat;
+import com.mercadoganadero.enums.UserRole;
+import com.mercadoganadero.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Exportación masiva de usuarios no eliminados (NDJSON o CSV) directo a la respuesta HTTP
+ * - Un solo SELECT con cursor del servidor (fetch size, transacción de solo lectura): PostgreSQL
+ *   entrega las filas en bloques y cada fila se escribe y se descarta; la memoria no crece con el total
+ * - Sin entidades ni contexto de persistencia (JdbcTemplate); los roles vienen agregados en la misma fila
+ * - Cada exportación ocupa una conexión del pool mientras dura: se limita el número de exportaciones
+ *   simultáneas y el resto recibe 503 + Retry-After
+ * Métrica: users.export.rows{format}
+ */
+@Service
+@Slf4j
+public class UserExportService {
+
+    private static final String EXPORT_SQL = """
+            SELECT u.user_id, u.name, u.last_name, u.email, u.phone_number,
+                   u.created_at, u.updated_at, u.last_login,
+                   u.is_active, u.email_verified, u.tfa_enabled,
+                   u.user_type_id, u.address_id, u.subscription_plan_id,
+                   (SELECT string_agg(r.role, ',') FROM user_roles r WHERE r.user_id = u.user_id) AS roles
+              FROM users u
+             WHERE u.deleted_at IS NULL
+               AND (CAST(? AS integer) IS NULL OR u.user_type_id = ?)
+             ORDER BY u.user_id
+            """;
+
+    private static final String CSV_HEADER = "user_id,name,last_name,email,phone_number,created_at,updated_at,"
+            + "last_login,is_active,email_verified,tfa_enabled,user_type_id,address_id,subscription_plan_id,roles";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter jsonWriter;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore exportSlots;
+
+    @Value("${app.users.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${app.users.export.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    public UserExportService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.users.export.max-concurrent:2}") int maxConcurrent) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Mismo formato que la API (fechas, nulls); sin flush por fila para no fragmentar la respuesta
+        this.jsonWriter = objectMapper.writerFor(UserResponseDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+        this.meterRegistry = meterRegistry;
+        this.exportSlots = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Escribe los usuarios no eliminados en out, ordenados por ID
+     * @param userTypeId filtra por tipo de usuario; null exporta todos
+     * @param target     destino; se abre solo si hay un lugar libre, así un 503 no lleva los headers de la descarga
+     * @return filas escritas
+     * @throws ServiceOverloadedException si ya hay max-concurrent exportaciones en curso
+     * @throws IOException si falla la escritura (ej: el cliente cerró la conexión)
+     */
+    public long export(UserExportFormat format, Integer userTypeId, ExportTarget target) throws IOException {
+        if (!exportSlots.tryAcquire()) {
+            throw new ServiceOverloadedException(
+                    "Ya hay exportaciones en curso. Por favor, intente de nuevo más tarde.", retryAfterSeconds);
+        }
+        try {
+            OutputStream out = target.open();
+            RowWriter rowWriter = format == UserExportFormat.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out);
+            long rows = readOnlyTransaction.execute(status -> stream(userTypeId, rowWriter));
+            rowWriter.finish();
+
+            meterRegistry.counter("users.export.rows", "format", format.name().toLowerCase()).increment(rows);
+            log.info("Exportación de usuarios ({}): {} filas", format, rows);
+            return rows;
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } finally {
+            exportSlots.release();
+        }
+    }
+
+    private long stream(Integer userTypeId, RowWriter rowWriter) {
+        long[] rows = {0};
+        RowCallbackHandler handler = rs -> {
+            try {
+                rowWriter.write(toListItem(rs));
+                if (++rows[0] % fetchSize == 0) {
+                    rowWriter.flush(); // Entrega al cliente lo escrito por cada bloque leído
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        };
+
+        jdbcTemplate.query(connection -> {
+            // Forward-only + fetch size dentro de una transacción: el driver usa un cursor del servidor
+            PreparedStatement ps = connection.prepareStatement(
+                    EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setObject(1, userTypeId);
+            ps.setObject(2, userTypeId);
+            return ps;
+        }, handler);
+        return rows[0];
+    }
+
+    // Mismos campos que UserResponseDTO.fromSummary
+    private static UserResponseDTO toListItem(ResultSet rs) throws SQLException {
+        return UserResponseDTO.builder()
+                .userId(rs.getInt("user_id"))
+                .name(rs.getString("name"))
+                .lastName(rs.getString("last_name"))
+                .email(rs.getString("email"))
+                .phoneNumber(rs.getString("phone_number"))
+                .createdAt(rs.getObject("created_at", OffsetDateTime.class))
+                .updatedAt(rs.getObject("updated_at", OffsetDateTime.class))
+                .lastLogin(rs.getObject("last_login", OffsetDateTime.class))
+                .isActive(rs.getObject("is_active", Boolean.class))
+                .emailVerified(rs.getObject("email_verified", Boolean.class))
+                .tfaEnabled(rs.getObject("tfa_enabled", Boolean.class))
+                .userTypeId(rs.getObject("user_type_id", Integer.class))
+                .addressId(rs.getObject("address_id", Integer.class))
+                .subscriptionPlanId(rs.getObject("subscription_plan_id", Integer.class))
+                .isDeleted(false)
+                .roles(parseRoles(rs.getString("roles")))
+                .build();
+    }
+
+    private static Set<UserRole> parseRoles(String roles) {
+        Set<UserRole> result = EnumSet.noneOf(UserRole.class);
+        if (roles != null) {
+            for (String role : roles.split(",")) {
+                result.add(UserRole.valueOf(role));
+            }
+        }
+        return result;
+    }
+
+    @FunctionalInterface
+    public interface ExportTarget {
+        OutputStream open() throws IOException;
+    }
+
+    private interface RowWriter {
+        void write(UserResponseDTO user) throws IOException;
+
+        void flush() throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    /**
+     * Un objeto JSON por línea
+     */
+    private class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+        private boolean empty = true;
+
+        NdjsonRowWriter(OutputStream out) throws IOException {
+            this.generator = jsonWriter.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(UserResponseDTO user) throws IOException {
+            jsonWriter.writeValue(generator, user);
+            empty = false;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (!empty) {
+                generator.writeRaw('\n'); // El separador solo va entre objetos
+            }
+            generator.close();
+        }
+    }
+
+    /**
+     * RFC 4180 con encabezado; fechas ISO-8601 y roles separados por '|'
+     */
+    private static class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            writer.write(CSV_HEADER);
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(UserResponseDTO user) throws IOException {
+            StringJoiner roles = new StringJoiner("|");
+            user.getRoles().forEach(role -> roles.add(role.name()));
+
+            writer.write(String.valueOf(user.getUserId()));
+            writeText(user.getName());
+            writeText(user.getLastName());
+            writeText(user.getEmail());
+            writeField(user.getPhoneNumber());
+            writeField(user.getCreatedAt());
+            writeField(user.getUpdatedAt());
+            writeField(user.getLastLogin());
+            writeField(user.getIsActive());
+            writeField(user.getEmailVerified());
+            writeField(user.getTfaEnabled());
+            writeField(user.getUserTypeId());
+            writeField(user.getAddressId());
+            writeField(user.getSubscriptionPlanId());
+            writeField(roles.toString());
+            writer.write("\r\n");
+        }
+
+        // Texto libre: evita que una hoja de cálculo interprete el valor como fórmula
+        private void writeText(String text) throws IOException {
+            if (text != null && !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+                text = "'" + text;
+            }
+            writeField(text);
+        }
+
+        private void writeField(Object value) throws IOException {
+            writer.write(',');
+            if (value == null) {
+                return;
+            }
+            String text = value.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(text);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.mercadoganadero.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mercadoganadero.dto.UserCreateDTO;
+import com.mercadoganadero.dto.UserImportResultDTO;
+import com.mercadoganadero.enums.UserImportStatus;
+import com.mercadoganadero.enums.UserRole;
+import com.mercadoganadero.exception.InvalidRequestException;
+import com.mercadoganadero.exception.WeakPasswordException;
+import com.mercadoganadero.security.BoundedPasswordEncoder;
+import com.mercadoganadero.security.PasswordEncoders;
+import com.mercadoganadero.validation.PasswordValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Importación masiva de usuarios (alta de cooperativas)
+ * Equivale a createUser por cada fila, pero con trabajo por lote en lugar de por usuario:
+ * - Validación por fila (Bean Validation + PasswordValidator) sin tocar la BD
+ * - Emails duplicados y referencias (tipo, dirección, plan) con una consulta por conjunto, no por fila
+ * - Hashing en paralelo en el pool acotado de BoundedPasswordEncoder, fuera de la transacción
+ * - IDs reservados de la secuencia de users en una consulta; INSERT en batches JDBC reales
+ *   (con IDENTITY, Hibernate no puede agrupar los INSERT)
+ * - ON CONFLICT (email) DO NOTHING: un registro concurrente del mismo email queda como DUPLICATE
+ * Una fila con error no detiene las demás; el resultado indica el estado de cada una.
+ * Métrica: users.import.rows{status}
+ */
+@Service
+@Slf4j
+public class UserImportService {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO users (user_id, name, last_name, email, phone_number,
+                               user_type_id, address_id, subscription_plan_id,
+                               password_hash, password_salt, password_algorithm,
+                               created_at, updated_at, is_active, email_verified, tfa_enabled,
+                               settings, notification_preferences)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, '', ?, ?, ?, true, false, false, CAST(? AS jsonb), CAST(? AS jsonb))
+            ON CONFLICT (email) DO NOTHING
+            """;
+
+    private final Validator validator;
+    private final PasswordValidator passwordValidator;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.users.import.max-rows:5000}")
+    private int maxRows;
+
+    @Value("${app.users.import.batch-size:500}")
+    private int batchSize;
+
+    public UserImportService(Validator validator,
+                             PasswordValidator passwordValidator,
+                             BoundedPasswordEncoder passwordEncoder,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
+        this.validator = validator;
+        this.passwordValidator = passwordValidator;
+        this.passwordEncoder = passwordEncoder;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Crea los usuarios válidos de la lista con rol USER (los mismos valores por defecto que createUser)
+     * @return un resultado por fila, en el mismo orden
+     * @throws InvalidRequestException si la lista está vacía o excede max-rows
+     */
+    public List<UserImportResultDTO> importUsers(List<UserCreateDTO> users) {
+        if (users == null || users.isEmpty()) {
+            throw new InvalidRequestException("La lista de usuarios está vacía");
+        }
+        if (users.size() > maxRows) {
+            throw new InvalidRequestException("La importación admite hasta " + maxRows + " usuarios por solicitud");
+        }
+
+        UserImportResultDTO[] results = new UserImportResultDTO[users.size()];
+
+        // 1. Validación por fila
+        List<Integer> candidates = new ArrayList<>();
+        for (int row = 0; row < users.size(); row++) {
+            List<String> errors = validate(users.get(row));
+            if (errors.isEmpty()) {
+                candidates.add(row);
+            } else {
+                results[row] = result(row, users.get(row), UserImportStatus.INVALID, errors);
+            }
+        }
+
+        // 2. Referencias y emails: una consulta por conjunto
+        Set<Integer> userTypes = existing("user_types", "user_type_id",
+                valuesOf(users, candidates, UserCreateDTO::getUserTypeId));
+        Set<Integer> addresses = existing("addresses", "address_id",
+                valuesOf(users, candidates, UserCreateDTO::getAddressId));
+        Set<Integer> plans = existing("subscription_plans", "subscription_plan_id",
+                valuesOf(users, candidates, UserCreateDTO::getSubscriptionPlanId));
+        Set<String> registeredEmails = registeredEmails(valuesOf(users, candidates, UserCreateDTO::getEmail));
+
+        Set<String> batchEmails = new HashSet<>();
+        List<Integer> accepted = new ArrayList<>();
+        for (Integer row : candidates) {
+            UserCreateDTO user = users.get(row);
+            List<String> errors = new ArrayList<>();
+            if (!userTypes.contains(user.getUserTypeId())) {
+                errors.add("El tipo de usuario " + user.getUserTypeId() + " no existe");
+            }
+            if (!addresses.contains(user.getAddressId())) {
+                errors.add("La dirección " + user.getAddressId() + " no existe");
+            }
+            if (!plans.contains(user.getSubscriptionPlanId())) {
+                errors.add("El plan de suscripción " + user.getSubscriptionPlanId() + " no existe");
+            }
+
+            if (!errors.isEmpty()) {
+                results[row] = result(row, user, UserImportStatus.INVALID, errors);
+            } else if (!batchEmails.add(user.getEmail())) {
+                results[row] = result(row, user, UserImportStatus.DUPLICATE,
+                        List.of("El email aparece más de una vez en la importación"));
+            } else if (registeredEmails.contains(user.getEmail())) {
+                results[row] = result(row, user, UserImportStatus.DUPLICATE, List.of("El email ya está registrado"));
+            } else {
+                accepted.add(row);
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            // 3. Hashing en paralelo, antes de tomar una conexión
+            List<String> hashes = passwordEncoder.encodeAll(
+                    accepted.stream().map(row -> users.get(row).getPassword()).toList());
+
+            // 4. Inserción
+            Integer[] userIds = transactionTemplate.execute(status -> insert(users, accepted, hashes));
+            for (int i = 0; i < accepted.size(); i++) {
+                int row = accepted.get(i);
+                results[row] = userIds[i] != null
+                        ? UserImportResultDTO.builder().row(row).email(users.get(row).getEmail())
+                                .status(UserImportStatus.CREATED).userId(userIds[i]).build()
+                        : result(row, users.get(row), UserImportStatus.DUPLICATE, List.of("El email ya está registrado"));
+            }
+        }
+
+        List<UserImportResultDTO> report = Arrays.asList(results);
+        for (UserImportStatus status : UserImportStatus.values()) {
+            long count = report.stream().filter(r -> r.getStatus() == status).count();
+            meterRegistry.counter("users.import.rows", "status", status.name().toLowerCase()).increment(count);
+        }
+        log.info("Importación de usuarios: {} filas, {} creadas", users.size(),
+                report.stream().filter(r -> r.getStatus() == UserImportStatus.CREATED).count());
+        return report;
+    }
+
+    private List<String> validate(UserCreateDTO user) {
+        if (user == null) {
+            return List.of("Fila vacía");
+        }
+        // LinkedHashSet: la longitud mínima la reportan tanto @Size como PasswordValidator
+        Set<String> errors = new LinkedHashSet<>();
+        validator.validate(user).stream()
+                .sorted((a, b) -> a.getPropertyPath().toString().compareTo(b.getPropertyPath().toString()))
+                .map(ConstraintViolation::getMessage)
+                .forEach(errors::add);
+        if (user.getPassword() != null) {
+            try {
+                passwordValidator.validatePassword(user.getPassword());
+            } catch (WeakPasswordException ex) {
+                errors.addAll(ex.getValidationErrors());
+            }
+        }
+        return List.copyOf(errors);
+    }
+
+    /**
+     * IDs reservados con nextval (la columna es GENERATED BY DEFAULT, admite IDs explícitos)
+     * @return ID por fila aceptada, null si el email ya existía al insertar
+     */
+    private Integer[] insert(List<UserCreateDTO> users, List<Integer> accepted, List<String> hashes) {
+        List<Integer> ids = jdbcTemplate.queryForList(
+                "SELECT nextval(pg_get_serial_sequence('users', 'user_id')) FROM generate_series(1, ?)",
+                Integer.class, accepted.size());
+
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Object[]> rows = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            UserCreateDTO user = users.get(accepted.get(i));
+            rows.add(new Object[]{
+                    ids.get(i), user.getName(), user.getLastName(), user.getEmail(), user.getPhoneNumber(),
+                    user.getUserTypeId(), user.getAddressId(), user.getSubscriptionPlanId(),
+                    hashes.get(i), PasswordEncoders.algorithmOf(hashes.get(i)), now, now,
+                    toJson(user.getSettings()), toJson(user.getNotificationPreferences())});
+        }
+
+        Integer[] userIds = new Integer[accepted.size()];
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, rows, batchSize, (ps, row) -> {
+            for (int column = 0; column < row.length; column++) {
+                ps.setObject(column + 1, row[column]);
+            }
+        });
+        boolean unknownCounts = false;
+        for (int batch = 0, i = 0; batch < counts.length; batch++) {
+            for (int count : counts[batch]) {
+                unknownCounts |= count == Statement.SUCCESS_NO_INFO;
+                userIds[i] = count == 0 ? null : ids.get(i);
+                i++;
+            }
+        }
+        if (unknownCounts) {
+            // Con reWriteBatchedInserts el driver no informa filas por sentencia: se consulta qué IDs quedaron
+            Set<Integer> inserted = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT user_id FROM users WHERE user_id = ANY(?)", Integer.class, (Object) ids.toArray(Integer[]::new)));
+            for (int i = 0; i < userIds.length; i++) {
+                userIds[i] = inserted.contains(ids.get(i)) ? ids.get(i) : null;
+            }
+        }
+
+        List<Integer> created = Arrays.stream(userIds).filter(Objects::nonNull).toList();
+        jdbcTemplate.batchUpdate("INSERT INTO user_roles (user_id, role) VALUES (?, ?)",
+                created.stream().map(userId -> new Object[]{userId, UserRole.USER.name()}).toList());
+
+        return userIds;
+    }
+
+    private static <T> List<T> valuesOf(List<UserCreateDTO> users, List<Integer> rows,
+                                        Function<UserCreateDTO, T> getter) {
+        return rows.stream().map(row -> getter.apply(users.get(row))).distinct().toList();
+    }
+
+    // table y column son constantes de esta clase, nunca datos del usuario
+    private Set<Integer> existing(String table, String column, Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT " + column + " FROM " + table + " WHERE " + column + " = ANY(?)",
+                Integer.class, (Object) ids.toArray(Integer[]::new)));
+    }
+
+    private Set<String> registeredEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT email FROM users WHERE email = ANY(?)", String.class, (Object) emails.toArray(String[]::new)));
+    }
+
+    // Mismo valor por defecto que User.onCreate: mapa vacío
+    private String toJson(Map<String, Object> value) {
+        try {
+            return objectMapper.writeValueAsString(value != null ? value : Map.of());
+        } catch (JsonProcessingException ex) {
+            throw new InvalidRequestException("JSON inválido en settings o notificationPreferences");
+        }
+    }
+
+    private static UserImportResultDTO result(int row, UserCreateDTO user, UserImportStatus status,
+                                              List<String> errors) {
+        return UserImportResultDTO.builder()
+                .row(row)
+                .email(user != null ? user.getEmail() : null)
+                .status(status)
+                .errors(errors)
+                .build();
+    }
+}
@@ -1,12 +1,16 @@
 package com.mercadoganadero.service;
 
+import com.mercadoganadero.dto.CursorPage;
 import com.mercadoganadero.dto.UserCreateDTO;
+import com.mercadoganadero.dto.UserResponseDTO;
 import com.mercadoganadero.dto.UserUpdateDTO;
 import com.mercadoganadero.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Service interface para operaciones de Usuario
@@ -55,29 +59,60 @@ public interface UserService {
     void deleteUser(Integer userId);
 
     // ============= BÚSQUEDA Y LISTADOS =============
+    // Los listados devuelven DTOs de listado (UserResponseDTO.fromSummary): sin jsonb y con roles,
+    // en una consulta por página más una para los roles de toda la página
 
     /**
      * Búsqueda de usuarios por término
      * Busca en nombre, apellido y email.
      * @param searchTerm El término de búsqueda.
      * @param pageable La información de paginación.
-     * @return Una página de objetos User.
+     * @return Una página de usuarios.
      */
-    Page<User> searchUsers(String searchTerm, Pageable pageable);
+    Page<UserResponseDTO> searchUsers(String searchTerm, Pageable pageable);
+
+    /**
+     * Búsqueda de usuarios por relevancia con paginación por cursor (keyset)
+     * @param searchTerm El término de búsqueda (mínimo 3 caracteres).
+     * @param cursor     El nextCursor de la página anterior, o null para la primera.
+     * @param size       Resultados por página (máximo 100).
+     * @return Los usuarios de la página y el cursor de la siguiente.
+     */
+    CursorPage<UserResponseDTO> searchUsers(String searchTerm, String cursor, int size);
 
     /**
      * Lista todos los usuarios con paginación
      * @param pageable La información de paginación.
-     * @return Una página de objetos User.
+     * @return Una página de usuarios.
+     */
+    Page<UserResponseDTO> getAllUsers(Pageable pageable);
+
+    /**
+     * Variantes sin COUNT de searchUsers y getAllUsers: solo indican si hay página siguiente
+     */
+    Slice<UserResponseDTO> searchUsersSlice(String searchTerm, Pageable pageable);
+
+    Slice<UserResponseDTO> getAllUsersSlice(Pageable pageable);
+
+    /**
+     * Lista usuarios no eliminados, más recientes primero, con paginación por cursor (keyset)
+     * @param cursor El nextCursor de la página anterior, o null para la primera.
+     * @param size   Resultados por página (máximo 100).
+     */
+    CursorPage<UserResponseDTO> getAllUsers(String cursor, int size);
+
+    /**
+     * Total aproximado de usuarios no eliminados (estadísticas de PostgreSQL, sin COUNT)
+     * @return vacío si no hay estadísticas disponibles
      */
-    Page<User> getAllUsers(Pageable pageable);
+    Optional<Long> estimateActiveUsers();
 
     /**
      * Obtiene usuarios por tipo
      * @param userTypeId El ID del tipo de usuario.
-     * @return Una lista de objetos User.
+     * @return Una lista de usuarios.
      */
-    List<User> getUsersByType(Integer userTypeId);
+    List<UserResponseDTO> getUsersByType(Integer userTypeId);
 
     // ============= OPERACIONES DE SEGURIDAD =============
 
@@ -1,37 +1,62 @@
 package com.mercadoganadero.service;
 
+import com.mercadoganadero.dto.CursorPage;
 import com.mercadoganadero.dto.UserCreateDTO;
+import com.mercadoganadero.dto.UserResponseDTO;
 import com.mercadoganadero.dto.UserUpdateDTO;
 import com.mercadoganadero.entity.User;
+import com.mercadoganadero.enums.OneTimeTokenPurpose;
 import com.mercadoganadero.enums.UserRole;
 import com.mercadoganadero.repository.UserRepository;
+import com.mercadoganadero.repository.UserSearchHit;
+import com.mercadoganadero.repository.UserSummary;
 import com.mercadoganadero.exception.ResourceNotFoundException;
 import com.mercadoganadero.exception.DuplicateEmailException;
 import com.mercadoganadero.exception.InvalidPasswordException;
+import com.mercadoganadero.exception.InvalidRequestException;
 import com.mercadoganadero.exception.InvalidTokenException;
+import com.mercadoganadero.security.PasswordEncoders;
+import com.mercadoganadero.security.jwt.TokenRevocationService;
 import com.mercadoganadero.validation.PasswordValidator;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.DateTimeException;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class UserServiceImpl implements UserService {
 
+    private static final int MIN_SEARCH_TERM_LENGTH = 3;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final PasswordValidator passwordValidator;
+    private final TokenRevocationService tokenRevocationService;
+    private final LastLoginRecorder lastLoginRecorder;
+    private final OneTimeTokenService oneTimeTokenService;
+    private final UserCacheInvalidator userCacheInvalidator;
 
     // ============================= OPERACIONES CRUD BÁSICAS =============================
 
@@ -71,6 +96,7 @@ public class UserServiceImpl implements UserService {
 
         // 2. Mapeo de DTO a Entidad y Hashing de Contraseña
         // Se usa el Builder de Lombok
+        String passwordHash = passwordEncoder.encode(dto.getPassword());
         User newUser = User.builder()
                 .name(dto.getName())
                 .lastName(dto.getLastName())
@@ -81,9 +107,9 @@ public class UserServiceImpl implements UserService {
                 .subscriptionPlanId(dto.getSubscriptionPlanId())
                 .settings(dto.getSettings())
                 .notificationPreferences(dto.getNotificationPreferences())
-                .passwordHash(passwordEncoder.encode(dto.getPassword())) // <--- HASHEO
+                .passwordHash(passwordHash) // <--- HASHEO
                 .passwordSalt("")
-                .passwordAlgorithm("bcrypt")
+                .passwordAlgorithm(PasswordEncoders.algorithmOf(passwordHash))
                 .isActive(true)
                 .emailVerified(false)
                 .tfaEnabled(false)
@@ -120,7 +146,9 @@ public class UserServiceImpl implements UserService {
         Optional.ofNullable(dto.getTfaEnabled()).ifPresent(existingUser::setTfaEnabled);
 
         // El updatedAt se maneja en la Entidad (con @PreUpdate)
-        return userRepository.save(existingUser);
+        User savedUser = userRepository.save(existingUser);
+        userCacheInvalidator.invalidate(userId);
+        return savedUser;
     }
 
     /**
@@ -136,26 +164,169 @@ public class UserServiceImpl implements UserService {
         user.setDeletedAt(OffsetDateTime.now());
         user.setIsActive(false);
         userRepository.save(user);
+        userCacheInvalidator.invalidate(userId);
+
+        // Los access tokens vigentes dejan de aceptarse aunque el principal sea stateless
+        tokenRevocationService.revokeUserTokens(userId);
         log.info("Usuario eliminado (soft delete): {}", user.getEmail());
     }
 
     // ============================= BÚSQUEDA Y LISTADOS =============================
 
     @Override
-    public Page<User> searchUsers(String searchTerm, Pageable pageable) {
-        // Asumiendo que UserRepository tiene un método con la Query de búsqueda
-        return userRepository.searchUsers(searchTerm, pageable);
+    public Page<UserResponseDTO> searchUsers(String searchTerm, Pageable pageable) {
+        Page<UserSummary> summaries = userRepository.searchSummaries(likePattern(normalizeSearchTerm(searchTerm)), pageable);
+        Map<Integer, Set<UserRole>> roles = rolesOf(summaries.getContent());
+        return summaries.map(summary -> toListItem(summary, roles));
     }
 
+    /**
+     * Búsqueda por relevancia con paginación keyset: el costo no crece con la profundidad de la página
+     * @throws InvalidRequestException si el término es demasiado corto o el cursor no es válido
+     */
     @Override
-    public Page<User> getAllUsers(Pageable pageable) {
+    public CursorPage<UserResponseDTO> searchUsers(String searchTerm, String cursor, int size) {
+        String term = normalizeSearchTerm(searchTerm);
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        Float afterScore = null;
+        Integer afterUserId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = Cursors.decode(cursor, 2);
+            try {
+                afterScore = Float.intBitsToFloat(Integer.parseUnsignedInt(position[0], 16));
+                afterUserId = Integer.valueOf(position[1]);
+            } catch (NumberFormatException ex) {
+                throw Cursors.invalid();
+            }
+        }
+
+        // Se pide uno más para saber si hay página siguiente sin contar el total
+        List<UserSearchHit> hits = userRepository.searchByRelevance(likePattern(term), term, afterScore, afterUserId, limit + 1);
+        boolean hasMore = hits.size() > limit;
+        if (hasMore) {
+            hits = hits.subList(0, limit);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            UserSearchHit last = hits.get(hits.size() - 1);
+            nextCursor = Cursors.encode(Integer.toHexString(Float.floatToIntBits(last.getScore())), last.getUserId());
+        }
+
+        // Columnas de listado y roles de la página, como en el resto de listados; se conserva el orden por relevancia
+        List<Integer> ids = hits.stream().map(UserSearchHit::getUserId).toList();
+        Map<Integer, UserSummary> summaries = ids.isEmpty() ? Map.of() : userRepository.findSummariesByIds(ids).stream()
+                .collect(Collectors.toMap(UserSummary::getUserId, Function.identity()));
+        Map<Integer, Set<UserRole>> roles = userRepository.findRolesByUserIds(summaries.keySet());
+        List<UserResponseDTO> items = ids.stream()
+                .map(summaries::get)
+                .filter(Objects::nonNull)
+                .map(summary -> toListItem(summary, roles))
+                .toList();
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+
+    /**
+     * Término en minúsculas y sin espacios en los extremos; con menos de 3 caracteres
+     * no hay trigramas y la búsqueda recorrería todo el índice
+     */
+    private static String normalizeSearchTerm(String searchTerm) {
+        String term = searchTerm == null ? "" : searchTerm.trim().toLowerCase(Locale.ROOT);
+        if (term.length() < MIN_SEARCH_TERM_LENGTH) {
+            throw new InvalidRequestException(
+                    "El término de búsqueda debe tener al menos " + MIN_SEARCH_TERM_LENGTH + " caracteres");
+        }
+        return term;
+    }
+
+    private static String likePattern(String term) {
+        String escaped = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
+    @Override
+    public Page<UserResponseDTO> getAllUsers(Pageable pageable) {
         // Lista solo usuarios que no tienen marca de borrado
-        return userRepository.findByDeletedAtIsNull(pageable);
+        Page<UserSummary> summaries = userRepository.findSummaries(pageable);
+        Map<Integer, Set<UserRole>> roles = rolesOf(summaries.getContent());
+        return summaries.map(summary -> toListItem(summary, roles));
+    }
+
+    @Override
+    public Slice<UserResponseDTO> searchUsersSlice(String searchTerm, Pageable pageable) {
+        Slice<UserSummary> summaries = userRepository.searchSummarySlice(likePattern(normalizeSearchTerm(searchTerm)), pageable);
+        Map<Integer, Set<UserRole>> roles = rolesOf(summaries.getContent());
+        return summaries.map(summary -> toListItem(summary, roles));
+    }
+
+    @Override
+    public Slice<UserResponseDTO> getAllUsersSlice(Pageable pageable) {
+        Slice<UserSummary> summaries = userRepository.findSummarySlice(pageable);
+        Map<Integer, Set<UserRole>> roles = rolesOf(summaries.getContent());
+        return summaries.map(summary -> toListItem(summary, roles));
     }
 
+    /**
+     * Listado keyset por (created_at, user_id): cada página cuesta lo mismo sin importar su profundidad
+     * @throws InvalidRequestException si el cursor no es válido
+     */
     @Override
-    public List<User> getUsersByType(Integer userTypeId) {
-        return userRepository.findByUserTypeIdAndDeletedAtIsNull(userTypeId);
+    public CursorPage<UserResponseDTO> getAllUsers(String cursor, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        // Se pide uno más para saber si hay página siguiente sin contar el total
+        List<UserSummary> users;
+        if (cursor == null || cursor.isBlank()) {
+            users = userRepository.findActiveNewest(Limit.of(limit + 1));
+        } else {
+            String[] position = Cursors.decode(cursor, 3);
+            OffsetDateTime createdAt;
+            Integer userId;
+            try {
+                createdAt = Instant.ofEpochSecond(Long.parseLong(position[0]), Integer.parseInt(position[1]))
+                        .atOffset(ZoneOffset.UTC);
+                userId = Integer.valueOf(position[2]);
+            } catch (NumberFormatException | DateTimeException ex) {
+                throw Cursors.invalid();
+            }
+            users = userRepository.findActiveCreatedBefore(createdAt, userId, Limit.of(limit + 1));
+        }
+
+        boolean hasMore = users.size() > limit;
+        if (hasMore) {
+            users = users.subList(0, limit);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            UserSummary last = users.get(users.size() - 1);
+            Instant createdAt = last.getCreatedAt().toInstant();
+            nextCursor = Cursors.encode(createdAt.getEpochSecond(), createdAt.getNano(), last.getUserId());
+        }
+        Map<Integer, Set<UserRole>> roles = rolesOf(users);
+        return new CursorPage<>(users.stream().map(summary -> toListItem(summary, roles)).toList(), nextCursor, hasMore);
+    }
+
+    @Override
+    public Optional<Long> estimateActiveUsers() {
+        return userRepository.estimateActiveUsers();
+    }
+
+    @Override
+    public List<UserResponseDTO> getUsersByType(Integer userTypeId) {
+        List<UserSummary> summaries = userRepository.findSummariesByUserType(userTypeId);
+        Map<Integer, Set<UserRole>> roles = rolesOf(summaries);
+        return summaries.stream().map(summary -> toListItem(summary, roles)).toList();
+    }
+
+    // Roles de toda la página en una consulta
+    private Map<Integer, Set<UserRole>> rolesOf(List<UserSummary> summaries) {
+        return userRepository.findRolesByUserIds(summaries.stream().map(UserSummary::getUserId).toList());
+    }
+
+    private static UserResponseDTO toListItem(UserSummary summary, Map<Integer, Set<UserRole>> roles) {
+        return UserResponseDTO.fromSummary(summary, roles.getOrDefault(summary.getUserId(), Set.of()));
     }
 
     // ============================= OPERACIONES DE SEGURIDAD =============================
@@ -182,7 +353,9 @@ public class UserServiceImpl implements UserService {
 
         // 3. Hashear y guardar la nueva contraseña
         user.setPasswordHash(passwordEncoder.encode(newPassword));
+        user.setPasswordAlgorithm(PasswordEncoders.algorithmOf(user.getPasswordHash()));
         userRepository.save(user);
+        userCacheInvalidator.invalidate(user.getUserId());
 
         log.info("Contraseña cambiada para usuario: {}", user.getEmail());
     }
@@ -199,14 +372,8 @@ public class UserServiceImpl implements UserService {
         if (userOptional.isPresent()) {
             User user = userOptional.get();
 
-            // 1. Generar token y fecha de expiración (Ejemplo de 1 hora)
-            String token = UUID.randomUUID().toString();
-            OffsetDateTime expiryDate = OffsetDateTime.now().plusHours(1);
-
-            // 2. Guardar token
-            user.setPasswordResetToken(token);
-            user.setPasswordResetTokenExpiryDate(expiryDate);
-            userRepository.save(user);
+            // 1. Generar token (invalida los anteriores); se guarda hasheado con su expiración
+            String token = oneTimeTokenService.issue(user.getUserId(), OneTimeTokenPurpose.PASSWORD_RESET);
 
             log.info("Token de reseteo generado para: {}", email);
 
@@ -222,30 +389,18 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public void resetPassword(String token, String newPassword) {
-        // 1. Buscar usuario por token (Asumimos findByPasswordResetToken en el repo)
-        User user = userRepository.findByPasswordResetToken(token)
-                .orElseThrow(() -> new InvalidTokenException("El token de reseteo es inválido."));
-
-        // 2. Validar expiración (Si el campo existe en la entidad User)
-
-        if (user.getPasswordResetTokenExpiryDate() != null &&
-            user.getPasswordResetTokenExpiryDate().isBefore(OffsetDateTime.now())) {
-                user.setPasswordResetToken(null);
-                user.setPasswordResetTokenExpiryDate(null);
-            userRepository.save(user);
-            throw new InvalidTokenException("El token de reseteo ha expirado.");
-        }
+        // 1. Consumir el token (búsqueda por índice, valida expiración y lo elimina)
+        Integer userId = oneTimeTokenService.consume(token, OneTimeTokenPurpose.PASSWORD_RESET);
+        User user = getUserById(userId);
 
-        // 3.VALIDAR NUEVA CONTRASEÑA
+        // 2.VALIDAR NUEVA CONTRASEÑA (si falla, la transacción se revierte y el token sigue vigente)
         passwordValidator.validatePassword(newPassword);
 
-        // 4. Resetear y Hashear la nueva contraseña
+        // 3. Resetear y Hashear la nueva contraseña
         user.setPasswordHash(passwordEncoder.encode(newPassword));
-
-        // 4. Limpiar token después de uso
-        user.setPasswordResetToken(null);
-        user.setPasswordResetTokenExpiryDate(null);
+        user.setPasswordAlgorithm(PasswordEncoders.algorithmOf(user.getPasswordHash()));
         userRepository.save(user);
+        userCacheInvalidator.invalidate(user.getUserId());
 
         log.info("Contraseña reseteada para usuario: {}", user.getEmail());
     }
@@ -257,15 +412,15 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public void verifyEmail(String token) {
-        // 1. Buscar usuario por token (Asumimos findByEmailVerificationToken en el repo)
-        User user = userRepository.findByEmailVerificationToken(token)
-                .orElseThrow(() -> new InvalidTokenException("El token de verificación es inválido."));
+        // 1. Consumir el token (búsqueda por índice y eliminación)
+        Integer userId = oneTimeTokenService.consume(token, OneTimeTokenPurpose.EMAIL_VERIFICATION);
+        User user = getUserById(userId);
 
-        // 2. Marcar email como verificado y limpiar token
+        // 2. Marcar email como verificado
         user.setEmailVerified(true);
-        user.setEmailVerificationToken(null);
         user.setEmailVerifiedAt(OffsetDateTime.now());
         userRepository.save(user);
+        userCacheInvalidator.invalidate(user.getUserId());
 
         log.info("Email verificado para usuario: {}", user.getEmail());
     }
@@ -277,13 +432,12 @@ public class UserServiceImpl implements UserService {
         return userRepository.countByDeletedAtIsNull();
     }
 
+    /**
+     * Diferido: se escribe en lote desde LastLoginRecorder, fuera del camino del login
+     */
     @Override
-    @Transactional
     public void updateLastLogin(Integer userId) {
-        userRepository.findById(userId).ifPresent(user -> {
-            user.setLastLogin(OffsetDateTime.now());
-            userRepository.save(user);
-        });
+        lastLoginRecorder.record(userId, OffsetDateTime.now());
     }
 
     @Override
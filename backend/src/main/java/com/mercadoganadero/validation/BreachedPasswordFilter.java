@@ -0,0 +1,133 @@
+package com.mercadoganadero.validation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Filtro de contraseñas filtradas (corpus de millones de entradas) en un archivo Bloom
+ * mapeado en memoria de solo lectura: la consulta es de tiempo constante y los datos
+ * viven en el page cache del sistema, no en el heap (sin presión de GC).
+ * El archivo se genera offline con BreachedPasswordFilterBuilder.
+ *
+ * Formato (big-endian):
+ *   "MGBF" | versión (int) | bits (long) | hashes (int) | entradas (long) | arreglo de bits
+ * Clave de cada contraseña: SHA-1 del texto en UTF-8 (compatible con listas de hashes SHA-1).
+ * Un positivo puede ser falso (tasa configurada al construir); un negativo es seguro.
+ */
+@Component
+@Slf4j
+public class BreachedPasswordFilter {
+
+    static final int MAGIC = 0x4D474246; // "MGBF"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 8;
+    static final int MAX_HASH_COUNT = 64; // fpp ~ 1e-19; más hashes indica un encabezado corrupto
+
+    private static final ThreadLocal<MessageDigest> SHA1 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-1 no disponible", ex);
+        }
+    });
+
+    private final MappedByteBuffer bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    public BreachedPasswordFilter(@Value("${app.security.breached-passwords.path:}") String path) throws IOException {
+        if (path == null || path.isBlank()) {
+            this.bits = null;
+            this.bitCount = 0;
+            this.hashCount = 0;
+            log.info("Filtro de contraseñas filtradas deshabilitado (app.security.breached-passwords.path vacío)");
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Filtro de contraseñas demasiado grande (máx. 2 GB): " + path);
+            }
+            // El mapeo sigue vigente después de cerrar el canal
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IllegalStateException("Archivo de contraseñas filtradas con formato inválido: " + path);
+            }
+            this.bitCount = buffer.getLong(8);
+            this.hashCount = buffer.getInt(16);
+            long entries = buffer.getLong(20);
+            // Un encabezado corrupto debe fallar al arrancar, no en cada mightContain (floorMod por cero)
+            if (bitCount <= 0 || hashCount <= 0 || hashCount > MAX_HASH_COUNT) {
+                throw new IllegalStateException("Archivo de contraseñas filtradas con encabezado inválido (bits "
+                        + bitCount + ", hashes " + hashCount + "): " + path);
+            }
+            if (HEADER_BYTES + (bitCount + 7) / 8 > channel.size()) {
+                throw new IllegalStateException("Archivo de contraseñas filtradas truncado: " + path);
+            }
+            this.bits = buffer;
+            log.info("Filtro de contraseñas filtradas cargado: {} entradas, {} MB, {} hashes",
+                    entries, channel.size() / (1024 * 1024), hashCount);
+        }
+    }
+
+    public boolean isEnabled() {
+        return bits != null;
+    }
+
+    /**
+     * @return true si la contraseña probablemente está en el corpus de filtraciones
+     */
+    public boolean mightContain(String password) {
+        if (bits == null || password == null) {
+            return false;
+        }
+        byte[] digest = SHA1.get().digest(password.getBytes(StandardCharsets.UTF_8));
+        long h1 = readLong(digest, 0);
+        long h2 = readLong(digest, 8);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get(HEADER_BYTES + (int) (bit >>> 3)) & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Posiciones de bit de una clave; compartido con el builder para garantizar el mismo formato
+     */
+    static long[] bitPositions(byte[] sha1Digest, long bitCount, int hashCount) {
+        long h1 = readLong(sha1Digest, 0);
+        long h2 = readLong(sha1Digest, 8);
+        long[] positions = new long[hashCount];
+        for (int i = 0; i < hashCount; i++) {
+            positions[i] = Math.floorMod(h1 + i * h2, bitCount);
+        }
+        return positions;
+    }
+
+    static MessageDigest sha1() {
+        return SHA1.get();
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
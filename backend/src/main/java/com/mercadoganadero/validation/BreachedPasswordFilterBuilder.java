@@ -0,0 +1,115 @@
+package com.mercadoganadero.validation;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+
+/**
+ * Herramienta offline: genera el archivo de BreachedPasswordFilter a partir de una lista en texto plano
+ *
+ * Uso:
+ *   java -cp mercado-ganadero-backend.jar \
+ *       -Dloader.main=com.mercadoganadero.validation.BreachedPasswordFilterBuilder \
+ *       org.springframework.boot.loader.launch.PropertiesLauncher \
+ *       entrada.txt salida.bloom [--fpp=0.001] [--sha1]
+ *
+ * - Una contraseña por línea (UTF-8); las líneas vacías se ignoran
+ * - --sha1: cada línea es un hash SHA-1 en hexadecimal, opcionalmente seguido de ":conteo"
+ *   (formato de las descargas de Have I Been Pwned)
+ */
+public final class BreachedPasswordFilterBuilder {
+
+    private static final double DEFAULT_FALSE_POSITIVE_RATE = 0.001;
+
+    private BreachedPasswordFilterBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: BreachedPasswordFilterBuilder <entrada.txt> <salida.bloom> [--fpp=0.001] [--sha1]");
+            System.exit(1);
+        }
+        Path input = Path.of(args[0]);
+        Path output = Path.of(args[1]);
+        double fpp = DEFAULT_FALSE_POSITIVE_RATE;
+        boolean sha1Input = false;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith("--fpp=")) {
+                fpp = Double.parseDouble(args[i].substring("--fpp=".length()));
+            } else if (args[i].equals("--sha1")) {
+                sha1Input = true;
+            } else {
+                throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+
+        long entries = countEntries(input);
+        if (entries == 0) {
+            throw new IllegalArgumentException("La lista de entrada está vacía: " + input);
+        }
+
+        long bitCount = (long) Math.ceil(-entries * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        bitCount = (bitCount + 7) / 8 * 8;
+        if (bitCount / 8 > Integer.MAX_VALUE - BreachedPasswordFilter.HEADER_BYTES) {
+            throw new IllegalArgumentException("El filtro resultante supera 2 GB; aumente --fpp o divida la lista");
+        }
+        int hashCount = Math.max(1, (int) Math.round((double) bitCount / entries * Math.log(2)));
+        if (hashCount > BreachedPasswordFilter.MAX_HASH_COUNT) {
+            throw new IllegalArgumentException("--fpp demasiado bajo: requiere " + hashCount + " hashes (máx. "
+                    + BreachedPasswordFilter.MAX_HASH_COUNT + ")");
+        }
+        byte[] bits = new byte[(int) (bitCount / 8)];
+
+        MessageDigest sha1 = BreachedPasswordFilter.sha1();
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                byte[] digest = sha1Input ? parseSha1Hex(line) : sha1.digest(line.getBytes(StandardCharsets.UTF_8));
+                for (long bit : BreachedPasswordFilter.bitPositions(digest, bitCount, hashCount)) {
+                    bits[(int) (bit >>> 3)] |= (byte) (1 << (bit & 7));
+                }
+            }
+        }
+
+        try (OutputStream file = Files.newOutputStream(output);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(BreachedPasswordFilter.MAGIC);
+            out.writeInt(BreachedPasswordFilter.VERSION);
+            out.writeLong(bitCount);
+            out.writeInt(hashCount);
+            out.writeLong(entries);
+            out.write(bits);
+        }
+
+        System.out.printf("Filtro generado: %s (%d entradas, %.1f MB, %d hashes, fpp %.4f)%n",
+                output, entries, bits.length / (1024.0 * 1024.0), hashCount, fpp);
+    }
+
+    private static long countEntries(Path input) throws IOException {
+        try (var lines = Files.lines(input, StandardCharsets.UTF_8)) {
+            return lines.filter(line -> !line.isEmpty()).count();
+        }
+    }
+
+    private static byte[] parseSha1Hex(String line) {
+        int end = line.indexOf(':');
+        String hex = (end < 0 ? line : line.substring(0, end)).trim();
+        if (hex.length() != 40) {
+            throw new IllegalArgumentException("Hash SHA-1 inválido: " + line);
+        }
+        byte[] digest = new byte[20];
+        for (int i = 0; i < 20; i++) {
+            digest[i] = (byte) Integer.parseInt(hex, i * 2, i * 2 + 2, 16);
+        }
+        return digest;
+    }
+}
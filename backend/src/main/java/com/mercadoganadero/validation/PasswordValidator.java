@@ -1,29 +1,44 @@
 package com.mercadoganadero.validation;
 
 import com.mercadoganadero.exception.WeakPasswordException;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 /**
  * Validador robusto de contraseñas
  * Aplica las mejores prácticas de seguridad OWASP
+ * Una sola pasada sobre la contraseña calcula todas las reglas y la fortaleza:
+ * clases de caracteres, repeticiones, secuencias y subcadenas prohibidas (autómata Aho-Corasick)
+ * Además se consulta el corpus de contraseñas filtradas (BreachedPasswordFilter), si está configurado
  */
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class PasswordValidator {
 
     private static final int MIN_LENGTH = 8;
     private static final int MAX_LENGTH = 128;
-
-    // Patrones de validación
-    private static final Pattern LOWERCASE = Pattern.compile("[a-z]");
-    private static final Pattern UPPERCASE = Pattern.compile("[A-Z]");
-    private static final Pattern DIGIT = Pattern.compile("[0-9]");
-    private static final Pattern SPECIAL_CHAR = Pattern.compile("[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>/?]");
+    private static final int MAX_REPEAT = 3;
+
+    // Resultado del escaneo: un bit por clase de carácter o regla incumplida
+    private static final int HAS_LOWERCASE = 1;
+    private static final int HAS_UPPERCASE = 1 << 1;
+    private static final int HAS_DIGIT = 1 << 2;
+    private static final int HAS_SPECIAL = 1 << 3;
+    private static final int COMMON_PASSWORD = 1 << 4;   // También categoría del autómata
+    private static final int KEYBOARD_SEQUENCE = 1 << 5; // También categoría del autómata
+    private static final int REPEATING = 1 << 6;
+    private static final int SEQUENTIAL = 1 << 7;
+    private static final int EDGE_WHITESPACE = 1 << 8;
+
+    private static final String SPECIAL_CHARS = "!@#$%^&*()_+-=[]{};':\"\\|,.<>/?";
+    private static final boolean[] IS_SPECIAL = new boolean[128];
 
     // Lista de contraseñas comunes prohibidas
     private static final List<String> COMMON_PASSWORDS = List.of(
@@ -32,6 +47,24 @@ public class PasswordValidator {
             "Password123", "Admin123", "Qwerty123"
     );
 
+    // Secuencias de teclado (las alfabéticas y numéricas se detectan en el escaneo)
+    private static final List<String> KEYBOARD_SEQUENCES = List.of("qwerty", "asdfgh", "zxcvbn", "qwertyuiop");
+
+    private static final SubstringAutomaton FORBIDDEN_SUBSTRINGS;
+
+    static {
+        for (int i = 0; i < SPECIAL_CHARS.length(); i++) {
+            IS_SPECIAL[SPECIAL_CHARS.charAt(i)] = true;
+        }
+
+        Map<String, Integer> patterns = new LinkedHashMap<>();
+        COMMON_PASSWORDS.forEach(p -> patterns.merge(p.toLowerCase(), COMMON_PASSWORD, (a, b) -> a | b));
+        KEYBOARD_SEQUENCES.forEach(p -> patterns.merge(p, KEYBOARD_SEQUENCE, (a, b) -> a | b));
+        FORBIDDEN_SUBSTRINGS = new SubstringAutomaton(patterns);
+    }
+
+    private final BreachedPasswordFilter breachedPasswords;
+
     /**
      * Valida una contraseña según criterios de seguridad
      * @param password La contraseña a validar
@@ -53,119 +86,135 @@ public class PasswordValidator {
             throw new WeakPasswordException(errors);
         }
 
+        int scan = scan(password);
+
         // 2. Validar complejidad
-        if (!LOWERCASE.matcher(password).find()) {
+        if ((scan & HAS_LOWERCASE) == 0) {
             errors.add("Debe contener al menos una letra minúscula");
         }
 
-        if (!UPPERCASE.matcher(password).find()) {
+        if ((scan & HAS_UPPERCASE) == 0) {
             errors.add("Debe contener al menos una letra mayúscula");
         }
 
-        if (!DIGIT.matcher(password).find()) {
+        if ((scan & HAS_DIGIT) == 0) {
             errors.add("Debe contener al menos un número");
         }
 
-        if (!SPECIAL_CHAR.matcher(password).find()) {
+        if ((scan & HAS_SPECIAL) == 0) {
             errors.add("Debe contener al menos un carácter especial (!@#$%^&*()_+-=[]{}etc)");
         }
 
         // 3. Verificar contraseñas comunes
-        String lowerPassword = password.toLowerCase();
-        for (String common : COMMON_PASSWORDS) {
-            if (lowerPassword.contains(common.toLowerCase())) {
-                errors.add("La contraseña es demasiado común y fácil de adivinar");
-                break;
-            }
+        if ((scan & COMMON_PASSWORD) != 0) {
+            errors.add("La contraseña es demasiado común y fácil de adivinar");
+        }
+
+        if (breachedPasswords.mightContain(password)) {
+            errors.add("La contraseña aparece en filtraciones de datos conocidas, elija otra");
         }
 
         // 4. Detectar patrones repetitivos
-        if (hasRepeatingCharacters(password, 3)) {
+        if ((scan & REPEATING) != 0) {
             errors.add("La contraseña no debe tener más de 3 caracteres consecutivos repetidos");
         }
 
-        if (hasSequentialCharacters(password)) {
+        if ((scan & (SEQUENTIAL | KEYBOARD_SEQUENCE)) != 0) {
             errors.add("La contraseña no debe contener secuencias obvias (abc, 123, etc.)");
         }
 
         // 5. Validar espacios en blanco
-        if (password.trim().length() != password.length()) {
+        if ((scan & EDGE_WHITESPACE) != 0) {
             errors.add("La contraseña no debe comenzar ni terminar con espacios");
         }
 
         // Lanzar excepción si hay errores
         if (!errors.isEmpty()) {
-            log.warn("Contraseña rechazada. Errores: {}", errors);
+            log.debug("Contraseña rechazada. Errores: {}", errors);
             throw new WeakPasswordException(errors);
         }
 
-        log.info("✅ Contraseña validada correctamente");
+        log.debug("Contraseña validada correctamente");
     }
 
     /**
-     * Verifica si la contraseña tiene caracteres repetidos consecutivamente
+     * Calcula la fortaleza de una contraseña (0-100)
      */
-    private boolean hasRepeatingCharacters(String password, int maxRepeat) {
-        int count = 1;
-        for (int i = 1; i < password.length(); i++) {
-            if (password.charAt(i) == password.charAt(i - 1)) {
-                count++;
-                if (count > maxRepeat) {
-                    return true;
-                }
-            } else {
-                count = 1;
-            }
+    public int calculatePasswordStrength(String password) {
+        if (password == null || password.isEmpty()) {
+            return 0;
         }
-        return false;
+        return strength(password.length(), scan(password));
     }
 
     /**
-     * Detecta secuencias comunes (abc, 123, qwerty, etc.)
+     * Recorre la contraseña una sola vez, sin crear objetos
+     * @return máscara con las clases de caracteres presentes y las reglas incumplidas
      */
-    private boolean hasSequentialCharacters(String password) {
-        String lower = password.toLowerCase();
+    private static int scan(String password) {
+        int length = password.length();
+        int result = 0;
+        int state = 0;          // Estado del autómata de subcadenas prohibidas
+        int repeat = 1;         // Caracteres iguales consecutivos
+        int ascending = 1;      // Caracteres consecutivos ascendentes (abc, 123) de la misma clase
+        char previous = 0;
+        char previousLower = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = password.charAt(i);
+            char lower = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : Character.toLowerCase(c);
+
+            // Clases de caracteres
+            if (c >= 'a' && c <= 'z') {
+                result |= HAS_LOWERCASE;
+            } else if (c >= 'A' && c <= 'Z') {
+                result |= HAS_UPPERCASE;
+            } else if (c >= '0' && c <= '9') {
+                result |= HAS_DIGIT;
+            } else if (c < 128 && IS_SPECIAL[c]) {
+                result |= HAS_SPECIAL;
+            }
 
-        // Secuencias alfabéticas
-        String[] alphabetSequences = {"abc", "bcd", "cde", "def", "efg", "fgh", "ghi", "hij", "ijk", "jkl", "klm", "lmn", "mno", "nop", "opq", "pqr", "qrs", "rst", "stu", "tuv", "uvw", "vwx", "wxy", "xyz"};
-        for (String seq : alphabetSequences) {
-            if (lower.contains(seq)) return true;
-        }
+            if (i > 0) {
+                // Repeticiones (distingue mayúsculas, como antes)
+                repeat = c == previous ? repeat + 1 : 1;
+                if (repeat > MAX_REPEAT) {
+                    result |= REPEATING;
+                }
 
-        // Secuencias numéricas
-        String[] numericSequences = {"012", "123", "234", "345", "456", "567", "678", "789"};
-        for (String seq : numericSequences) {
-            if (password.contains(seq)) return true;
-        }
+                // Secuencias: "abc".."xyz" y "012".."789", sin distinguir mayúsculas
+                ascending = lower == previousLower + 1 && sameSequenceClass(lower, previousLower) ? ascending + 1 : 1;
+                if (ascending >= 3) {
+                    result |= SEQUENTIAL;
+                }
+            }
 
-        // Secuencias de teclado
-        String[] keyboardSequences = {"qwerty", "asdfgh", "zxcvbn", "qwertyuiop"};
-        for (String seq : keyboardSequences) {
-            if (lower.contains(seq)) return true;
-        }
+            state = FORBIDDEN_SUBSTRINGS.next(state, lower);
+            result |= FORBIDDEN_SUBSTRINGS.matches(state);
 
-        return false;
-    }
+            previous = c;
+            previousLower = lower;
+        }
 
-    /**
-     * Calcula la fortaleza de una contraseña (0-100)
-     */
-    public int calculatePasswordStrength(String password) {
-        if (password == null || password.isEmpty()) {
-            return 0;
+        // Equivalente a trim(): caracteres de control o espacio en los extremos
+        if (length > 0 && (password.charAt(0) <= ' ' || password.charAt(length - 1) <= ' ')) {
+            result |= EDGE_WHITESPACE;
         }
+        return result;
+    }
 
-        int strength = 0;
+    private static boolean sameSequenceClass(char current, char previous) {
+        return (current >= 'a' && current <= 'z' && previous >= 'a')
+                || (current >= '0' && current <= '9' && previous >= '0');
+    }
 
+    private static int strength(int length, int scan) {
         // Longitud (hasta 40 puntos)
-        strength += Math.min(password.length() * 2, 40);
+        int strength = Math.min(length * 2, 40);
 
         // Complejidad (15 puntos cada uno)
-        if (LOWERCASE.matcher(password).find()) strength += 15;
-        if (UPPERCASE.matcher(password).find()) strength += 15;
-        if (DIGIT.matcher(password).find()) strength += 15;
-        if (SPECIAL_CHAR.matcher(password).find()) strength += 15;
+        strength += Integer.bitCount(scan & (HAS_LOWERCASE | HAS_UPPERCASE | HAS_DIGIT | HAS_SPECIAL)) * 15;
 
         return Math.min(strength, 100);
     }
-}
\ No newline at end of file
+}
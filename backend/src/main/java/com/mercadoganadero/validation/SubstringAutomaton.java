@@ -0,0 +1,101 @@
+package com.mercadoganadero.validation;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Autómata Aho-Corasick precompilado para buscar muchas subcadenas ASCII en una sola pasada
+ * - Transiciones completas (DFA) en un arreglo plano: un acceso a memoria por carácter, sin retrocesos
+ * - Cada patrón tiene una categoría (bit); matches(state) devuelve las categorías encontradas
+ *   en el estado, incluidas las heredadas por enlaces de falla
+ * El costo de buscar no depende del número de patrones, así el diccionario puede crecer.
+ */
+final class SubstringAutomaton {
+
+    private static final int NO_SYMBOL = -1;
+
+    private final int[] symbolOf = new int[128]; // char ASCII -> símbolo del alfabeto reducido
+    private final int alphabetSize;
+    private final int[] transitions;              // state * alphabetSize + symbol -> state
+    private final int[] outputs;                  // state -> máscara de categorías
+
+    /**
+     * @param patterns patrón (se compara en minúsculas) -> máscara de categoría
+     */
+    SubstringAutomaton(Map<String, Integer> patterns) {
+        Arrays.fill(symbolOf, NO_SYMBOL);
+        int symbols = 0;
+        int maxStates = 1;
+        for (String pattern : patterns.keySet()) {
+            maxStates += pattern.length();
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = Character.toLowerCase(pattern.charAt(i));
+                if (c >= 128) {
+                    throw new IllegalArgumentException("Solo se admiten patrones ASCII: " + pattern);
+                }
+                if (symbolOf[c] == NO_SYMBOL) {
+                    symbolOf[c] = symbols++;
+                }
+            }
+        }
+        this.alphabetSize = Math.max(1, symbols);
+
+        // 1. Trie
+        int[] trie = new int[maxStates * alphabetSize];
+        int[] output = new int[maxStates];
+        int states = 1;
+        for (Map.Entry<String, Integer> entry : patterns.entrySet()) {
+            int state = 0;
+            String pattern = entry.getKey();
+            for (int i = 0; i < pattern.length(); i++) {
+                int slot = state * alphabetSize + symbolOf[Character.toLowerCase(pattern.charAt(i))];
+                if (trie[slot] == 0) {
+                    trie[slot] = states++;
+                }
+                state = trie[slot];
+            }
+            output[state] |= entry.getValue();
+        }
+
+        // 2. Enlaces de falla (BFS) completando las transiciones ausentes
+        int[] fail = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < alphabetSize; symbol++) {
+            int child = trie[symbol];
+            if (child != 0) {
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            output[state] |= output[fail[state]];
+            for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                int slot = state * alphabetSize + symbol;
+                int child = trie[slot];
+                if (child != 0) {
+                    fail[child] = trie[fail[state] * alphabetSize + symbol];
+                    queue.add(child);
+                } else {
+                    trie[slot] = trie[fail[state] * alphabetSize + symbol];
+                }
+            }
+        }
+
+        this.transitions = Arrays.copyOf(trie, states * alphabetSize);
+        this.outputs = Arrays.copyOf(output, states);
+    }
+
+    /**
+     * @param lowerChar carácter ya en minúsculas
+     */
+    int next(int state, char lowerChar) {
+        int symbol = lowerChar < 128 ? symbolOf[lowerChar] : NO_SYMBOL;
+        return symbol == NO_SYMBOL ? 0 : transitions[state * alphabetSize + symbol];
+    }
+
+    int matches(int state) {
+        return outputs[state];
+    }
+}
@@ -0,0 +1,145 @@
+package com.mercadoganadero.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mantenimiento de particiones contra PostgreSQL real, con la partición DEFAULT de la migración 009
+ * (esquema mínimo equivalente a las migraciones 002 y 009). Se omite si no hay Docker.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RefreshTokenPartitionMaintenanceTest {
+
+    private static final int REFRESH_EXPIRATION_DAYS = 7;
+    private static final int PREMAKE_WEEKS = 2;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16");
+
+    private JdbcTemplate jdbc;
+    private SimpleMeterRegistry meterRegistry;
+    private RefreshTokenPartitionMaintenance maintenance;
+    private LocalDate currentWeek;
+    private LocalDate lastPremadeWeek;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        jdbc = new JdbcTemplate(dataSource);
+        meterRegistry = new SimpleMeterRegistry();
+        maintenance = new RefreshTokenPartitionMaintenance(dataSource, meterRegistry);
+        ReflectionTestUtils.setField(maintenance, "refreshExpirationDays", REFRESH_EXPIRATION_DAYS);
+        ReflectionTestUtils.setField(maintenance, "premakeWeeks", PREMAKE_WEEKS);
+        ReflectionTestUtils.setField(maintenance, "lockTimeout", "5s");
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        currentWeek = weekStart(today);
+        lastPremadeWeek = weekStart(today.plusDays(REFRESH_EXPIRATION_DAYS)).plusWeeks(PREMAKE_WEEKS);
+
+        jdbc.execute("DROP TABLE IF EXISTS public.refresh_tokens CASCADE");
+        jdbc.execute("""
+                CREATE TABLE public.refresh_tokens (
+                    id bigserial NOT NULL,
+                    token_hash bytea NOT NULL,
+                    user_id integer NOT NULL,
+                    expires_at timestamp with time zone NOT NULL,
+                    created_at timestamp with time zone DEFAULT now() NOT NULL,
+                    revoked_at timestamp with time zone,
+                    CONSTRAINT refresh_tokens_pkey PRIMARY KEY (id, expires_at)
+                ) PARTITION BY RANGE (expires_at)
+                """);
+        jdbc.execute("CREATE INDEX idx_refresh_tokens_user_active ON public.refresh_tokens (user_id, created_at DESC)"
+                + " WHERE revoked_at IS NULL");
+        jdbc.execute("CREATE TABLE public.refresh_tokens_default PARTITION OF public.refresh_tokens DEFAULT");
+    }
+
+    @Test
+    void dropsExpiredPartitionsWhenDefaultPartitionExists() {
+        createPartition(currentWeek.minusWeeks(2));
+        createPartition(currentWeek.minusWeeks(1));
+        insertToken(currentWeek.minusWeeks(2).plusDays(1));
+        insertToken(currentWeek.minusWeeks(1).plusDays(1));
+
+        maintenance.maintainPartitions();
+
+        List<LocalDate> weeks = partitionWeeks();
+        assertFalse(weeks.contains(currentWeek.minusWeeks(2)));
+        assertFalse(weeks.contains(currentWeek.minusWeeks(1)));
+        assertEquals(2.0, meterRegistry.counter("refresh_tokens.partitions.dropped").count());
+        assertEquals(0, countTokens());
+    }
+
+    @Test
+    void createsPartitionsAheadAndEmptiesDefaultPartition() {
+        insertToken(currentWeek.minusWeeks(3));                    // Expirado: se borra
+        insertToken(currentWeek.plusDays(2));                      // Semana actual: se mueve
+        LocalDate farWeek = lastPremadeWeek.plusWeeks(3);
+        insertToken(farWeek.plusDays(1));                          // Más allá del horizonte: se mueve
+
+        maintenance.maintainPartitions();
+
+        List<LocalDate> weeks = partitionWeeks();
+        for (LocalDate week = currentWeek; !week.isAfter(farWeek); week = week.plusWeeks(1)) {
+            assertTrue(weeks.contains(week), "Falta la partición de la semana " + week);
+        }
+        assertEquals(0, jdbc.queryForObject("SELECT count(*) FROM public.refresh_tokens_default", Integer.class));
+        assertEquals(2, countTokens());
+
+        // Segunda ejecución: no hay nada que crear ni eliminar
+        double created = meterRegistry.counter("refresh_tokens.partitions.created").count();
+        maintenance.maintainPartitions();
+        assertEquals(created, meterRegistry.counter("refresh_tokens.partitions.created").count());
+        assertEquals(weeks.size(), partitionWeeks().size());
+    }
+
+    private void createPartition(LocalDate week) {
+        jdbc.execute("CREATE TABLE public.refresh_tokens_p" + week.format(DateTimeFormatter.BASIC_ISO_DATE)
+                + " PARTITION OF public.refresh_tokens FOR VALUES FROM ('" + week + " 00:00:00+00') TO ('"
+                + week.plusWeeks(1) + " 00:00:00+00')");
+    }
+
+    private void insertToken(LocalDate expiresOn) {
+        jdbc.update("INSERT INTO public.refresh_tokens (token_hash, user_id, expires_at)"
+                + " VALUES (decode(md5(random()::text) || md5(random()::text), 'hex'), 1,"
+                + " (?::date + time '12:00') AT TIME ZONE 'UTC')", expiresOn.toString());
+    }
+
+    private int countTokens() {
+        return jdbc.queryForObject("SELECT count(*) FROM public.refresh_tokens", Integer.class);
+    }
+
+    private List<LocalDate> partitionWeeks() {
+        return jdbc.queryForList("""
+                        SELECT substring(c.relname FROM 'refresh_tokens_p(\\d{8})$')
+                          FROM pg_inherits i
+                          JOIN pg_class c ON c.oid = i.inhrelid
+                         WHERE i.inhparent = 'public.refresh_tokens'::regclass
+                           AND c.relname <> 'refresh_tokens_default'
+                        """, String.class).stream()
+                .map(suffix -> LocalDate.parse(suffix, DateTimeFormatter.BASIC_ISO_DATE))
+                .toList();
+    }
+
+    private static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
@@ -0,0 +1,94 @@
+package com.mercadoganadero.validation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ida y vuelta del formato compartido: archivo generado con BreachedPasswordFilterBuilder
+ * y leído con BreachedPasswordFilter
+ */
+class BreachedPasswordFilterTest {
+
+    private static final int LISTED = 2_000;
+    private static final int UNLISTED = 20_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void everyListedPasswordHitsAndOthersMostlyMiss() throws IOException {
+        List<String> listed = new ArrayList<>();
+        for (int i = 0; i < LISTED; i++) {
+            listed.add("filtrada-" + i + "-Ñandú");
+        }
+        Path input = dir.resolve("lista.txt");
+        Files.write(input, listed, StandardCharsets.UTF_8);
+        Path output = dir.resolve("lista.bloom");
+
+        BreachedPasswordFilterBuilder.main(new String[]{input.toString(), output.toString(), "--fpp=0.001"});
+        BreachedPasswordFilter filter = new BreachedPasswordFilter(output.toString());
+
+        assertTrue(filter.isEnabled());
+        for (String password : listed) {
+            assertTrue(filter.mightContain(password), "Falta en el filtro: " + password);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < UNLISTED; i++) {
+            if (filter.mightContain("no-filtrada-" + i)) {
+                falsePositives++;
+            }
+        }
+        // fpp 0.001 -> ~20 esperados; el margen evita un test inestable
+        assertTrue(falsePositives < UNLISTED / 100, "Demasiados falsos positivos: " + falsePositives);
+    }
+
+    @Test
+    void sha1InputMatchesPlainPasswords() throws IOException {
+        String hex = HexFormat.of().withUpperCase()
+                .formatHex(BreachedPasswordFilter.sha1().digest("Password123!".getBytes(StandardCharsets.UTF_8)));
+        Path input = dir.resolve("hashes.txt");
+        Files.writeString(input, hex + ":42\n", StandardCharsets.UTF_8);
+        Path output = dir.resolve("hashes.bloom");
+
+        BreachedPasswordFilterBuilder.main(new String[]{input.toString(), output.toString(), "--sha1"});
+        BreachedPasswordFilter filter = new BreachedPasswordFilter(output.toString());
+
+        assertTrue(filter.mightContain("Password123!"));
+        assertFalse(filter.mightContain("Otra-Contraseña-9"));
+    }
+
+    @Test
+    void rejectsCorruptHeaderAtLoad() throws IOException {
+        assertThrows(IllegalStateException.class, () -> new BreachedPasswordFilter(writeHeader(0, 7).toString()));
+        assertThrows(IllegalStateException.class, () -> new BreachedPasswordFilter(writeHeader(1024, 0).toString()));
+        assertThrows(IllegalStateException.class,
+                () -> new BreachedPasswordFilter(writeHeader(1024, BreachedPasswordFilter.MAX_HASH_COUNT + 1).toString()));
+    }
+
+    private Path writeHeader(long bitCount, int hashCount) throws IOException {
+        Path file = Files.createTempFile(dir, "corrupto", ".bloom");
+        try (OutputStream stream = Files.newOutputStream(file); DataOutputStream out = new DataOutputStream(stream)) {
+            out.writeInt(BreachedPasswordFilter.MAGIC);
+            out.writeInt(BreachedPasswordFilter.VERSION);
+            out.writeLong(bitCount);
+            out.writeInt(hashCount);
+            out.writeLong(1);
+            out.write(new byte[(int) Math.max(0, bitCount / 8)]);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,205 @@
+package com.mercadoganadero.validation;
+
+import com.mercadoganadero.exception.WeakPasswordException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara el escaneo de una pasada de PasswordValidator con la implementación anterior
+ * (regex + contains, ver LegacyRules) sobre contraseñas aleatorias: mismos errores, en el
+ * mismo orden, y misma fortaleza. Sin corpus de contraseñas filtradas.
+ */
+class PasswordValidatorTest {
+
+    private static final int RANDOM_INPUTS = 300_000;
+
+    // ASCII imprimible, espacios/control en los extremos y algunas letras no ASCII
+    private static final String ALPHABET =
+            " !\"#$%&'()*+,-./0123456789:;<=>?@ABCDEFGHIJKLMNOPQRSTUVWXYZ[\\]^_`abcdefghijklmnopqrstuvwxyz{|}~"
+                    + "\t\nñÑáÉüÜ€";
+
+    // Fragmentos que disparan las reglas de diccionario, secuencias y repeticiones
+    private static final String[] FRAGMENTS = {
+            "password", "PassWord1", "12345678", "qwerty", "QWERTY", "abc123", "admin", "Admin123",
+            "letmein", "welcome", "monkey", "1234567890", "asdfgh", "zxcvbn", "qwertyuiop",
+            "abc", "XYZ", "bCd", "012", "789", "aaaa", "1111", "AAAa", "yza", "890", "9ab", "z{|"
+    };
+
+    private static PasswordValidator validator;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        validator = new PasswordValidator(new BreachedPasswordFilter(""));
+    }
+
+    @Test
+    void matchesLegacyRulesOnRandomInputs() {
+        Random random = new Random(20261018L);
+        for (int i = 0; i < RANDOM_INPUTS; i++) {
+            String password = randomPassword(random);
+            assertEquals(LegacyRules.errors(password), errors(password), () -> "Errores distintos para: " + password);
+            assertEquals(LegacyRules.strength(password), validator.calculatePasswordStrength(password),
+                    () -> "Fortaleza distinta para: " + password);
+        }
+    }
+
+    @Test
+    void matchesLegacyRulesOnEdgeCases() {
+        List<String> passwords = List.of("", " ", "a", "Aa1!", "Aa1!aaaa", "Aa1!aaa ", " Aa1!xyzw", "Zz9!Zz9!Zz9!",
+                "Correcto#Caballo7Bateria", "Password123!", "\tTabulado9!", "Ñandú#2024x", "a".repeat(129));
+        for (String password : passwords) {
+            assertEquals(LegacyRules.errors(password), errors(password), () -> "Errores distintos para: " + password);
+            assertEquals(LegacyRules.strength(password), validator.calculatePasswordStrength(password));
+        }
+    }
+
+    @Test
+    void acceptsStrongPasswordAndRejectsNull() {
+        assertTrue(errors("Correcto#Caballo7Bateria").isEmpty());
+        assertFalse(errors(null).isEmpty());
+        assertEquals(0, validator.calculatePasswordStrength(null));
+    }
+
+    private static List<String> errors(String password) {
+        try {
+            validator.validatePassword(password);
+            return List.of();
+        } catch (WeakPasswordException ex) {
+            return ex.getValidationErrors();
+        }
+    }
+
+    private static String randomPassword(Random random) {
+        int length = random.nextInt(20);
+        StringBuilder password = new StringBuilder(length + 16);
+        while (password.length() < length) {
+            if (random.nextInt(8) == 0) {
+                password.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            } else {
+                password.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+        }
+        return password.toString();
+    }
+
+    /**
+     * Reglas tal como estaban antes del escaneo de una pasada (sin logs ni excepción)
+     * toLowerCase con Locale.ROOT para que el resultado no dependa del locale de la JVM
+     */
+    private static final class LegacyRules {
+
+        private static final Pattern LOWERCASE = Pattern.compile("[a-z]");
+        private static final Pattern UPPERCASE = Pattern.compile("[A-Z]");
+        private static final Pattern DIGIT = Pattern.compile("[0-9]");
+        private static final Pattern SPECIAL_CHAR = Pattern.compile("[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>/?]");
+
+        private static final List<String> COMMON_PASSWORDS = List.of(
+                "password", "12345678", "qwerty", "abc123", "password1",
+                "admin", "letmein", "welcome", "monkey", "1234567890",
+                "Password123", "Admin123", "Qwerty123"
+        );
+
+        private static final String[] ALPHABET_SEQUENCES = {"abc", "bcd", "cde", "def", "efg", "fgh", "ghi", "hij",
+                "ijk", "jkl", "klm", "lmn", "mno", "nop", "opq", "pqr", "qrs", "rst", "stu", "tuv", "uvw", "vwx", "wxy", "xyz"};
+        private static final String[] NUMERIC_SEQUENCES = {"012", "123", "234", "345", "456", "567", "678", "789"};
+        private static final String[] KEYBOARD_SEQUENCES = {"qwerty", "asdfgh", "zxcvbn", "qwertyuiop"};
+
+        static List<String> errors(String password) {
+            List<String> errors = new ArrayList<>();
+
+            if (password == null || password.length() < 8) {
+                errors.add("La contraseña debe tener al menos 8 caracteres");
+            }
+            if (password != null && password.length() > 128) {
+                errors.add("La contraseña no puede exceder 128 caracteres");
+            }
+            if (password == null) {
+                return errors;
+            }
+
+            if (!LOWERCASE.matcher(password).find()) {
+                errors.add("Debe contener al menos una letra minúscula");
+            }
+            if (!UPPERCASE.matcher(password).find()) {
+                errors.add("Debe contener al menos una letra mayúscula");
+            }
+            if (!DIGIT.matcher(password).find()) {
+                errors.add("Debe contener al menos un número");
+            }
+            if (!SPECIAL_CHAR.matcher(password).find()) {
+                errors.add("Debe contener al menos un carácter especial (!@#$%^&*()_+-=[]{}etc)");
+            }
+
+            String lowerPassword = password.toLowerCase(Locale.ROOT);
+            for (String common : COMMON_PASSWORDS) {
+                if (lowerPassword.contains(common.toLowerCase(Locale.ROOT))) {
+                    errors.add("La contraseña es demasiado común y fácil de adivinar");
+                    break;
+                }
+            }
+
+            if (hasRepeatingCharacters(password)) {
+                errors.add("La contraseña no debe tener más de 3 caracteres consecutivos repetidos");
+            }
+            if (hasSequentialCharacters(password)) {
+                errors.add("La contraseña no debe contener secuencias obvias (abc, 123, etc.)");
+            }
+            if (password.trim().length() != password.length()) {
+                errors.add("La contraseña no debe comenzar ni terminar con espacios");
+            }
+            return errors;
+        }
+
+        static int strength(String password) {
+            if (password == null || password.isEmpty()) {
+                return 0;
+            }
+            int strength = Math.min(password.length() * 2, 40);
+            if (LOWERCASE.matcher(password).find()) strength += 15;
+            if (UPPERCASE.matcher(password).find()) strength += 15;
+            if (DIGIT.matcher(password).find()) strength += 15;
+            if (SPECIAL_CHAR.matcher(password).find()) strength += 15;
+            return Math.min(strength, 100);
+        }
+
+        private static boolean hasRepeatingCharacters(String password) {
+            int count = 1;
+            for (int i = 1; i < password.length(); i++) {
+                if (password.charAt(i) == password.charAt(i - 1)) {
+                    count++;
+                    if (count > 3) {
+                        return true;
+                    }
+                } else {
+                    count = 1;
+                }
+            }
+            return false;
+        }
+
+        private static boolean hasSequentialCharacters(String password) {
+            String lower = password.toLowerCase(Locale.ROOT);
+            for (String seq : ALPHABET_SEQUENCES) {
+                if (lower.contains(seq)) return true;
+            }
+            for (String seq : NUMERIC_SEQUENCES) {
+                if (password.contains(seq)) return true;
+            }
+            for (String seq : KEYBOARD_SEQUENCES) {
+                if (lower.contains(seq)) return true;
+            }
+            return false;
+        }
+    }
+}
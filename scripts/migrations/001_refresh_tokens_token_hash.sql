@@ -0,0 +1,39 @@
+-- ========================================
+-- MIGRACIÓN 001: REFRESH TOKENS HASHEADOS
+-- Marketplace Ganadero
+--
+-- refresh_tokens deja de guardar el token en claro (varchar(500)) y guarda
+-- su digest SHA-256 (bytea de 32 bytes) con un índice único compacto.
+-- El backend busca por sha256(token), igual que esta conversión, así que
+-- las sesiones existentes siguen siendo válidas.
+-- ========================================
+
+BEGIN;
+
+ALTER TABLE public.refresh_tokens
+    ADD COLUMN token_hash bytea,
+    ADD COLUMN replaced_by_token_hash bytea;
+
+UPDATE public.refresh_tokens
+   SET token_hash = sha256(convert_to(token, 'UTF8')),
+       replaced_by_token_hash = CASE
+           WHEN replaced_by_token IS NOT NULL THEN sha256(convert_to(replaced_by_token, 'UTF8'))
+       END;
+
+ALTER TABLE public.refresh_tokens
+    ALTER COLUMN token_hash SET NOT NULL,
+    ADD CONSTRAINT chk_refresh_tokens_token_hash_len CHECK (octet_length(token_hash) = 32),
+    ADD CONSTRAINT chk_refresh_tokens_replaced_by_hash_len CHECK (octet_length(replaced_by_token_hash) = 32);
+
+DROP INDEX IF EXISTS public.idx_refresh_token;
+
+ALTER TABLE public.refresh_tokens
+    DROP COLUMN token,
+    DROP COLUMN replaced_by_token;
+
+CREATE UNIQUE INDEX uq_refresh_tokens_token_hash ON public.refresh_tokens USING btree (token_hash);
+
+COMMENT ON COLUMN public.refresh_tokens.token_hash IS 'SHA-256 digest (32 bytes) of the opaque refresh token; the raw token is never stored';
+COMMENT ON COLUMN public.refresh_tokens.replaced_by_token_hash IS 'SHA-256 digest of the token that replaced this one (to detect reuse)';
+
+COMMIT;
@@ -0,0 +1,85 @@
+-- ========================================
+-- MIGRACIÓN 002: REFRESH TOKENS PARTICIONADOS
+-- Marketplace Ganadero
+--
+-- refresh_tokens pasa a estar particionada por rango de expires_at,
+-- una partición por semana (lunes 00:00 UTC), con nombre refresh_tokens_pYYYYMMDD.
+-- El backend (RefreshTokenPartitionMaintenance) crea las particiones futuras
+-- y elimina con DROP TABLE las que ya expiraron por completo, así que la
+-- limpieza deja de borrar filas y no genera trabajo de vacuum.
+--
+-- Cambios de esquema:
+--   - PK (id, expires_at): la clave de partición debe formar parte de las claves únicas
+--   - token_hash deja de ser único a nivel global (256 bits aleatorios: colisión imposible en la práctica)
+--   - Los tokens ya expirados no se migran
+-- Requiere que el usuario de la aplicación sea dueño de la tabla (CREATE/ATTACH PARTITION, DROP TABLE).
+-- ========================================
+
+BEGIN;
+
+ALTER TABLE public.refresh_tokens RENAME TO refresh_tokens_old;
+ALTER INDEX public.refresh_tokens_pkey RENAME TO refresh_tokens_old_pkey;
+ALTER INDEX public.uq_refresh_tokens_token_hash RENAME TO refresh_tokens_old_token_hash;
+ALTER INDEX public.idx_refresh_token_expires_at RENAME TO refresh_tokens_old_expires_at;
+ALTER INDEX public.idx_refresh_token_user_id RENAME TO refresh_tokens_old_user_id;
+
+-- La secuencia debe sobrevivir al DROP de la tabla anterior
+ALTER SEQUENCE public.refresh_tokens_id_seq OWNED BY NONE;
+
+CREATE TABLE public.refresh_tokens (
+    id bigint DEFAULT nextval('public.refresh_tokens_id_seq'::regclass) NOT NULL,
+    token_hash bytea NOT NULL,
+    user_id integer NOT NULL,
+    expires_at timestamp with time zone NOT NULL,
+    created_at timestamp with time zone DEFAULT now() NOT NULL,
+    revoked_at timestamp with time zone,
+    replaced_by_token_hash bytea,
+    ip_address character varying(45),
+    user_agent character varying(500),
+    CONSTRAINT refresh_tokens_pkey PRIMARY KEY (id, expires_at),
+    CONSTRAINT chk_refresh_tokens_token_hash_len CHECK (octet_length(token_hash) = 32),
+    CONSTRAINT chk_refresh_tokens_replaced_by_hash_len CHECK (octet_length(replaced_by_token_hash) = 32),
+    CONSTRAINT fk_refresh_token_user FOREIGN KEY (user_id) REFERENCES public.users(user_id) ON DELETE CASCADE
+) PARTITION BY RANGE (expires_at);
+
+ALTER SEQUENCE public.refresh_tokens_id_seq OWNED BY public.refresh_tokens.id;
+
+CREATE INDEX idx_refresh_tokens_token_hash ON public.refresh_tokens USING btree (token_hash);
+CREATE INDEX idx_refresh_token_user_id ON public.refresh_tokens USING btree (user_id);
+
+-- Particiones desde la semana actual hasta cubrir el horizonte de expiración (máx. 30 días) y 4 semanas más
+DO $$
+DECLARE
+    week_start timestamptz := date_trunc('week', now() AT TIME ZONE 'UTC') AT TIME ZONE 'UTC';
+    last_week  timestamptz := date_trunc('week', (now() + interval '30 days') AT TIME ZONE 'UTC') AT TIME ZONE 'UTC'
+                              + interval '4 weeks';
+BEGIN
+    WHILE week_start <= last_week LOOP
+        EXECUTE format(
+            'CREATE TABLE public.%I PARTITION OF public.refresh_tokens FOR VALUES FROM (%L) TO (%L)',
+            'refresh_tokens_p' || to_char(week_start AT TIME ZONE 'UTC', 'YYYYMMDD'),
+            week_start,
+            week_start + interval '1 week');
+        week_start := week_start + interval '1 week';
+    END LOOP;
+END $$;
+
+INSERT INTO public.refresh_tokens (id, token_hash, user_id, expires_at, created_at, revoked_at,
+                                   replaced_by_token_hash, ip_address, user_agent)
+SELECT id, token_hash, user_id, expires_at, created_at, revoked_at,
+       replaced_by_token_hash, ip_address, user_agent
+  FROM public.refresh_tokens_old
+ WHERE expires_at > now();
+
+DROP TABLE public.refresh_tokens_old;
+
+GRANT SELECT ON TABLE public.refresh_tokens TO readonly_user;
+GRANT SELECT,INSERT,UPDATE ON TABLE public.refresh_tokens TO app_user;
+GRANT ALL ON TABLE public.refresh_tokens TO data_admin;
+
+COMMENT ON TABLE public.refresh_tokens IS 'Refresh tokens to renew access without re-authentication, range-partitioned weekly by expires_at';
+COMMENT ON COLUMN public.refresh_tokens.token_hash IS 'SHA-256 digest (32 bytes) of the opaque refresh token; the raw token is never stored';
+COMMENT ON COLUMN public.refresh_tokens.revoked_at IS 'Manual revocation date (logout or suspected theft)';
+COMMENT ON COLUMN public.refresh_tokens.replaced_by_token_hash IS 'SHA-256 digest of the token that replaced this one (to detect reuse)';
+
+COMMIT;
@@ -0,0 +1,23 @@
+-- ========================================
+-- MIGRACIÓN 003: ÍNDICE DE SESIONES ACTIVAS
+-- Marketplace Ganadero
+--
+-- Índice parcial para aplicar app.jwt.max-active-sessions sin COUNT:
+-- solo contiene tokens no revocados, ordenados del más reciente al más antiguo.
+-- Un token que expira sin revocarse seguiría en el índice hasta que se borre su
+-- partición; por eso cada login primero marca como revocados los expirados del
+-- usuario (RefreshTokenRepository.retireExpiredTokens). Así las entradas por
+-- usuario quedan acotadas por el límite de sesiones y no por el historial.
+-- Las particiones nuevas lo heredan automáticamente.
+-- (CREATE INDEX CONCURRENTLY no está disponible sobre la tabla particionada)
+-- ========================================
+
+BEGIN;
+
+CREATE INDEX idx_refresh_tokens_user_active
+    ON public.refresh_tokens USING btree (user_id, created_at DESC)
+    WHERE revoked_at IS NULL;
+
+COMMENT ON INDEX public.idx_refresh_tokens_user_active IS 'Active (non-revoked) sessions per user, newest first; used to enforce the session limit';
+
+COMMIT;
@@ -0,0 +1,29 @@
+-- ========================================
+-- MIGRACIÓN 004: LÍMITE DE INTENTOS COMPARTIDO
+-- Marketplace Ganadero
+--
+-- Token buckets para app.security.rate-limit.mode=postgres (varios nodos).
+-- UNLOGGED: sin WAL, escrituras baratas; tras un crash la tabla queda vacía,
+-- lo que equivale a buckets llenos (aceptable para un limitador).
+-- Las filas inactivas las elimina el backend periódicamente.
+-- ========================================
+
+BEGIN;
+
+CREATE UNLOGGED TABLE public.auth_rate_limits (
+    bucket_key character varying(320) NOT NULL,
+    tokens double precision NOT NULL,
+    updated_at timestamp with time zone NOT NULL,
+    CONSTRAINT auth_rate_limits_pkey PRIMARY KEY (bucket_key)
+);
+
+CREATE INDEX idx_auth_rate_limits_updated_at ON public.auth_rate_limits USING btree (updated_at);
+
+GRANT SELECT,INSERT,UPDATE,DELETE ON TABLE public.auth_rate_limits TO app_user;
+GRANT ALL ON TABLE public.auth_rate_limits TO data_admin;
+
+COMMENT ON TABLE public.auth_rate_limits IS 'Token buckets for auth endpoint rate limiting shared across backend nodes';
+COMMENT ON COLUMN public.auth_rate_limits.bucket_key IS 'Bucket key: ip:<address> or email:<lower-case email>';
+COMMENT ON COLUMN public.auth_rate_limits.tokens IS 'Tokens left at updated_at; refilled lazily on the next request';
+
+COMMIT;
@@ -0,0 +1,38 @@
+-- ========================================
+-- MIGRACIÓN 005: REVOCACIÓN DE ACCESS TOKENS
+-- Marketplace Ganadero
+--
+-- Registro de access tokens revocados antes de expirar:
+--   - por token (jti), ej: logout
+--   - por usuario (not_before), ej: logout global o desactivación de la cuenta
+-- El backend mantiene la lista en memoria y la difunde con NOTIFY token_revocations;
+-- esta tabla solo se lee al arrancar o al reconectar un nodo. Las filas se eliminan
+-- cuando expires_at pasa (el token ya no sería aceptado de todos modos).
+-- ========================================
+
+BEGIN;
+
+CREATE TABLE public.access_token_revocations (
+    id bigint GENERATED ALWAYS AS IDENTITY,
+    jti character varying(64),
+    user_id integer,
+    not_before timestamp with time zone,
+    expires_at timestamp with time zone NOT NULL,
+    created_at timestamp with time zone DEFAULT now() NOT NULL,
+    CONSTRAINT access_token_revocations_pkey PRIMARY KEY (id),
+    CONSTRAINT chk_access_token_revocations_target CHECK (
+        (jti IS NOT NULL AND user_id IS NULL AND not_before IS NULL)
+        OR (jti IS NULL AND user_id IS NOT NULL AND not_before IS NOT NULL))
+);
+
+CREATE INDEX idx_access_token_revocations_expires_at ON public.access_token_revocations USING btree (expires_at);
+
+GRANT SELECT,INSERT,DELETE ON TABLE public.access_token_revocations TO app_user;
+GRANT SELECT ON TABLE public.access_token_revocations TO readonly_user;
+GRANT ALL ON TABLE public.access_token_revocations TO data_admin;
+
+COMMENT ON TABLE public.access_token_revocations IS 'Access tokens revoked before expiry, by jti or by user cut-off; loaded by backend nodes on startup';
+COMMENT ON COLUMN public.access_token_revocations.not_before IS 'Tokens of user_id issued before this instant are rejected';
+COMMENT ON COLUMN public.access_token_revocations.expires_at IS 'After this instant every affected token has expired and the row can be deleted';
+
+COMMIT;
@@ -0,0 +1,57 @@
+-- ========================================
+-- MIGRACIÓN 006: TOKENS DE UN SOLO USO
+-- Marketplace Ganadero
+--
+-- Los tokens de reseteo de contraseña y de verificación de email salen de users
+-- (columnas text sin índice: cada búsqueda era un seq scan de users) a una tabla
+-- propia con el digest SHA-256 del token, índice único y fecha de expiración.
+-- Los tokens vigentes se migran hasheados con sha256(token), igual que el backend,
+-- así que los enlaces ya enviados siguen funcionando. Los tokens de verificación
+-- no tenían expiración: se les asigna 7 días desde ahora.
+-- ========================================
+
+BEGIN;
+
+CREATE TABLE public.one_time_tokens (
+    id bigint GENERATED ALWAYS AS IDENTITY,
+    token_hash bytea NOT NULL,
+    user_id integer NOT NULL,
+    purpose character varying(32) NOT NULL,
+    expires_at timestamp with time zone NOT NULL,
+    created_at timestamp with time zone DEFAULT now() NOT NULL,
+    CONSTRAINT one_time_tokens_pkey PRIMARY KEY (id),
+    CONSTRAINT fk_one_time_tokens_user FOREIGN KEY (user_id) REFERENCES public.users(user_id) ON DELETE CASCADE,
+    CONSTRAINT chk_one_time_tokens_token_hash_len CHECK (octet_length(token_hash) = 32),
+    CONSTRAINT chk_one_time_tokens_purpose CHECK (purpose IN ('PASSWORD_RESET', 'EMAIL_VERIFICATION'))
+);
+
+CREATE UNIQUE INDEX uq_one_time_tokens_token_hash ON public.one_time_tokens USING btree (token_hash);
+CREATE INDEX idx_one_time_tokens_user_purpose ON public.one_time_tokens USING btree (user_id, purpose);
+CREATE INDEX idx_one_time_tokens_expires_at ON public.one_time_tokens USING btree (expires_at);
+
+INSERT INTO public.one_time_tokens (token_hash, user_id, purpose, expires_at)
+SELECT sha256(convert_to(password_reset_token, 'UTF8')), user_id, 'PASSWORD_RESET',
+       COALESCE(password_reset_token_expiry_date, now() + interval '1 hour')
+  FROM public.users
+ WHERE password_reset_token IS NOT NULL
+   AND (password_reset_token_expiry_date IS NULL OR password_reset_token_expiry_date > now())
+UNION ALL
+SELECT sha256(convert_to(email_verification_token, 'UTF8')), user_id, 'EMAIL_VERIFICATION',
+       now() + interval '7 days'
+  FROM public.users
+ WHERE email_verification_token IS NOT NULL
+ON CONFLICT DO NOTHING;
+
+ALTER TABLE public.users
+    DROP COLUMN password_reset_token,
+    DROP COLUMN password_reset_token_expiry_date,
+    DROP COLUMN email_verification_token;
+
+GRANT SELECT,INSERT,DELETE ON TABLE public.one_time_tokens TO app_user;
+GRANT SELECT ON TABLE public.one_time_tokens TO readonly_user;
+GRANT ALL ON TABLE public.one_time_tokens TO data_admin;
+
+COMMENT ON TABLE public.one_time_tokens IS 'Single-use password reset and email verification tokens; rows are deleted when used or expired';
+COMMENT ON COLUMN public.one_time_tokens.token_hash IS 'SHA-256 digest (32 bytes) of the token sent to the user; the raw token is never stored';
+
+COMMIT;
@@ -0,0 +1,25 @@
+-- ========================================
+-- MIGRACIÓN 007: BÚSQUEDA DE USUARIOS CON TRIGRAMAS
+-- Marketplace Ganadero
+--
+-- La búsqueda de usuarios ("contiene", sin distinguir mayúsculas) sobre nombre,
+-- apellido y email no podía usar ningún índice: cada búsqueda recorría users.
+-- Índice GIN de trigramas (pg_trgm) sobre la misma expresión que genera el
+-- backend, solo para usuarios no eliminados:
+--   lower(name || ' ' || last_name || ' ' || email) LIKE '%termino%'
+-- Si se cambia la expresión en UserRepository / UserRepositoryCustomImpl hay
+-- que recrear el índice, o el planner dejará de usarlo.
+-- Los términos de menos de 3 caracteres no generan trigramas; el backend los rechaza.
+--
+-- Sin BEGIN/COMMIT: CREATE INDEX CONCURRENTLY no puede ejecutarse en una transacción
+-- (no bloquea escrituras sobre users mientras se construye).
+-- CREATE EXTENSION requiere un rol con privilegios (data_admin o superusuario).
+-- ========================================
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm WITH SCHEMA public;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_search_trgm
+    ON public.users USING gin ((lower(name || ' ' || last_name || ' ' || email)) public.gin_trgm_ops)
+    WHERE deleted_at IS NULL;
+
+COMMENT ON INDEX public.idx_users_search_trgm IS 'Trigram index for case-insensitive substring search over name, last name and email of non-deleted users';
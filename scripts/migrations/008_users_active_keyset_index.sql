@@ -0,0 +1,19 @@
+-- ========================================
+-- MIGRACIÓN 008: ÍNDICE PARA LISTADO DE USUARIOS POR CURSOR
+-- Marketplace Ganadero
+--
+-- GET /api/users/cursor pagina por keyset (created_at, user_id) descendente:
+--   WHERE deleted_at IS NULL AND (created_at, user_id) < (:created_at, :user_id)
+--   ORDER BY created_at DESC, user_id DESC LIMIT n
+-- Con este índice parcial cada página es un recorrido de n entradas, sin ordenar
+-- y sin importar la profundidad. idx_users_active_created (deleted_at, created_at)
+-- no incluye user_id, necesario para desempatar usuarios creados en el mismo instante.
+--
+-- Sin BEGIN/COMMIT: CREATE INDEX CONCURRENTLY no puede ejecutarse en una transacción.
+-- ========================================
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_active_keyset
+    ON public.users USING btree (created_at DESC, user_id DESC)
+    WHERE deleted_at IS NULL;
+
+COMMENT ON INDEX public.idx_users_active_keyset IS 'Keyset pagination of non-deleted users, newest first';
@@ -0,0 +1,22 @@
+-- ========================================
+-- MIGRACIÓN 009: PARTICIÓN DEFAULT DE REFRESH TOKENS
+-- Marketplace Ganadero
+--
+-- La migración 002 solo crea particiones semanales hasta now() + 30 días + 4 semanas.
+-- Si RefreshTokenPartitionMaintenance deja de correr (deshabilitado, errores, lease
+-- tomado) o app.jwt.refresh-expiration-days supera ese horizonte, un INSERT con un
+-- expires_at sin partición fallaría ("no partition of relation found") y con él
+-- todo login y refresh. La partición DEFAULT recibe esas filas.
+--
+-- El mantenimiento mueve las filas de la DEFAULT a su partición semanal al crearla
+-- (una partición nueva no puede crearse si la DEFAULT tiene filas de su rango) y
+-- borra las ya expiradas, así que en operación normal está vacía.
+-- ========================================
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS public.refresh_tokens_default PARTITION OF public.refresh_tokens DEFAULT;
+
+COMMENT ON TABLE public.refresh_tokens_default IS 'Catch-all partition for refresh tokens outside the pre-made weekly ranges; emptied by the backend maintenance job';
+
+COMMIT;